@@ -0,0 +1,51 @@
+// Prueba de carga con k6 (https://k6.io) para comparar el modo clásico y el de hilos virtuales.
+//
+// 1. Arrancar el backend en el modo a medir:
+//      clásico:  mvn spring-boot:run
+//      virtual:  mvn -Pvirtual-threads spring-boot:run -Dspring-boot.run.profiles=virtual
+// 2. Obtener un token con POST /api/usuarios/login.
+// 3. Ejecutar:
+//      k6 run -e BASE_URL=http://localhost:8080 -e TOKEN=<token> -e VUS=5000 loadtest/referencias.js
+//
+// Comparar http_reqs (throughput), http_req_duration p(50)/p(99) y http_req_failed entre ambos modos.
+//   k6 run --summary-trend-stats "avg,p(50),p(95),p(99)" ...
+//
+// Todavía no hay resultados: el script y el perfil "virtual" son herramientas para medir, no una
+// mejora comprobada. Anotar aquí las cifras de cada modo (hardware, VUS, p50, p99, req/s) al medir.
+
+import http from 'k6/http';
+import { check } from 'k6';
+
+const BASE_URL = __ENV.BASE_URL || 'http://localhost:8080';
+const TOKEN = __ENV.TOKEN || '';
+const VUS = parseInt(__ENV.VUS || '5000', 10);
+
+export const options = {
+  scenarios: {
+    conexiones_concurrentes: {
+      executor: 'ramping-vus',
+      startVUs: 0,
+      stages: [
+        { duration: '30s', target: VUS },
+        { duration: '2m', target: VUS },
+        { duration: '15s', target: 0 },
+      ],
+      gracefulRampDown: '10s',
+    },
+  },
+  thresholds: {
+    http_req_failed: ['rate<0.01'],
+  },
+};
+
+const params = { headers: { Authorization: `Bearer ${TOKEN}` } };
+
+export default function () {
+  // Mezcla de lecturas: listado paginado (JDBC) y consulta por id (caché)
+  const pagina = http.get(`${BASE_URL}/api/referencias/pagina?activo=true&tamano=50`, params);
+  check(pagina, { 'pagina 200': (r) => r.status === 200 });
+
+  const id = 1 + Math.floor(Math.random() * 1000);
+  const detalle = http.get(`${BASE_URL}/api/referencias/${id}`, params);
+  check(detalle, { 'detalle 200/404': (r) => r.status === 200 || r.status === 404 });
+}
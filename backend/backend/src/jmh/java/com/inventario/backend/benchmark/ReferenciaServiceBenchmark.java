@@ -0,0 +1,78 @@
+package com.inventario.backend.benchmark;
+
+import com.inventario.backend.BackendApplication;
+import com.inventario.backend.model.Referencia;
+import com.inventario.backend.service.ReferenciaService;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+// registrar/actualizar de ReferenciaService contra PostgreSQL (las migraciones usan pg_trgm,
+// disparadores y UPDATE ... RETURNING, que H2 no soporta).
+// Mide el costo del servicio completo: validación, sentencia única y caché.
+// Perfil benchmark: base propia (inventario_benchmark, ver application-benchmark.properties).
+// Los códigos llevan un prefijo por ejecución y al terminar se borran sus filas (y sus eventos de outbox).
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReferenciaServiceBenchmark {
+
+    private ConfigurableApplicationContext contexto;
+    private ReferenciaService referenciaService;
+    private Long idExistente;
+    private final AtomicLong secuencia = new AtomicLong();
+    private final String ejecucion = "RF" + System.currentTimeMillis();
+
+    @Setup(Level.Trial)
+    public void iniciar() {
+        // Argumentos de línea de comandos: tienen prioridad sobre application.properties
+        contexto = new SpringApplicationBuilder(BackendApplication.class)
+                .run(
+                        "--spring.profiles.active=benchmark",
+                        "--server.port=0",
+                        "--spring.jpa.show-sql=false",
+                        "--logging.level.root=WARN",
+                        "--logging.level.org.hibernate.SQL=WARN",
+                        "--logging.level.org.hibernate.type.descriptor.sql.BasicBinder=WARN");
+        referenciaService = contexto.getBean(ReferenciaService.class);
+
+        Referencia inicial = new Referencia(null, ejecucion + "0", "Referencia base " + ejecucion, true, null, null, null);
+        idExistente = referenciaService.registrar(inicial).getIdReferencia();
+    }
+
+    @TearDown(Level.Trial)
+    public void cerrar() {
+        try {
+            // La auditoría es de solo inserción (V7): sus filas quedan en la base de benchmarks
+            JdbcTemplate jdbcTemplate = contexto.getBean(JdbcTemplate.class);
+            String patron = ejecucion + "%";
+            jdbcTemplate.update("DELETE FROM outbox WHERE agregado = 'referencia' AND id_agregado IN ("
+                    + "SELECT id_referencia FROM referencias WHERE codigo LIKE ?)", patron);
+            jdbcTemplate.update("DELETE FROM referencias WHERE codigo LIKE ?", patron);
+        } finally {
+            contexto.close();
+        }
+    }
+
+    @Benchmark
+    public Referencia registrar() {
+        long n = secuencia.incrementAndGet();
+        return referenciaService.registrar(
+                new Referencia(null, ejecucion + n, "Referencia " + ejecucion + "-" + n, true, null, null, null));
+    }
+
+    @Benchmark
+    public Referencia actualizar() {
+        long n = secuencia.incrementAndGet();
+        return referenciaService.actualizar(idExistente,
+                new Referencia(null, ejecucion + "0", "Referencia base " + ejecucion + "-" + n, true, null, null, null), null);
+    }
+}
@@ -0,0 +1,91 @@
+package com.inventario.backend.benchmark;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import com.inventario.backend.model.Referencia;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPOutputStream;
+
+// Serialización de listas de referencias, como las devuelven los endpoints de listado:
+// JSON, CBOR y Smile, con y sin gzip (server.compression). Al terminar cada prueba
+// se imprime el tamaño en bytes de cada variante para comparar lo que viaja por la red.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SerializacionReferenciasBenchmark {
+
+    @Param({ "100", "10000" })
+    public int cantidad;
+
+    private final ObjectMapper objectMapper = new ObjectMapper();
+    private final ObjectMapper cborMapper = new ObjectMapper(new CBORFactory());
+    private final ObjectMapper smileMapper = new ObjectMapper(new SmileFactory());
+    private List<Referencia> referencias;
+
+    @Setup
+    public void preparar() {
+        referencias = new ArrayList<>(cantidad);
+        for (int i = 0; i < cantidad; i++) {
+            referencias.add(new Referencia((long) i, "RF" + i, "Referencia de prueba " + i, i % 5 != 0, 0L, null, null));
+        }
+    }
+
+    @TearDown
+    public void imprimirTamanos() throws IOException {
+        System.out.printf("%n%d referencias -> json %d B, json+gzip %d B, cbor %d B, cbor+gzip %d B, smile %d B, smile+gzip %d B%n",
+                cantidad,
+                serializarLista().length, serializarListaGzip().length,
+                serializarListaCbor().length, serializarListaCborGzip().length,
+                serializarListaSmile().length, serializarListaSmileGzip().length);
+    }
+
+    @Benchmark
+    public byte[] serializarLista() throws IOException {
+        return objectMapper.writeValueAsBytes(referencias);
+    }
+
+    @Benchmark
+    public byte[] serializarListaGzip() throws IOException {
+        return comprimir(objectMapper);
+    }
+
+    @Benchmark
+    public byte[] serializarListaCbor() throws IOException {
+        return cborMapper.writeValueAsBytes(referencias);
+    }
+
+    @Benchmark
+    public byte[] serializarListaCborGzip() throws IOException {
+        return comprimir(cborMapper);
+    }
+
+    @Benchmark
+    public byte[] serializarListaSmile() throws IOException {
+        return smileMapper.writeValueAsBytes(referencias);
+    }
+
+    @Benchmark
+    public byte[] serializarListaSmileGzip() throws IOException {
+        return comprimir(smileMapper);
+    }
+
+    // Mismo recorrido que Tomcat: el serializador escribe directamente sobre el flujo gzip
+    private byte[] comprimir(ObjectMapper mapper) throws IOException {
+        ByteArrayOutputStream salida = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(salida, 8 * 1024)) {
+            mapper.writeValue(gzip, referencias);
+        }
+        return salida.toByteArray();
+    }
+}
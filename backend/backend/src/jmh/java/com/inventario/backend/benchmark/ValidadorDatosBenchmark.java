@@ -0,0 +1,60 @@
+package com.inventario.backend.benchmark;
+
+import com.inventario.backend.model.Referencia;
+import com.inventario.backend.model.Usuario;
+import com.inventario.backend.utils.ValidadorDatos;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+// Validaciones que se ejecutan en cada registro/edición.
+// Los métodos *Regex reproducen la implementación anterior con String.matches como línea base;
+// con -prof gc, gc.alloc.rate.norm muestra los bytes asignados por operación.
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ValidadorDatosBenchmark {
+
+    private Usuario usuario;
+    private Referencia referencia;
+
+    @Setup
+    public void preparar() {
+        usuario = new Usuario(null, "Ana Pérez", "1234567890", "ana.perez@empresa.com",
+                "secreta123", "TECNICO", true, null, null, null, 0);
+        referencia = new Referencia(null, "RF1024", "Tornillo hexagonal 3/8", true, null, null, null);
+    }
+
+    @Benchmark
+    public Usuario validarUsuario() {
+        ValidadorDatos.validarUsuario(usuario);
+        return usuario;
+    }
+
+    @Benchmark
+    public Referencia validarReferencia() {
+        ValidadorDatos.validarReferencia(referencia);
+        return referencia;
+    }
+
+    @Benchmark
+    public boolean validarUsuarioRegex() {
+        return usuario.getNombre().trim().isEmpty()
+                || !usuario.getCedula().matches("\\d{6,10}")
+                || !usuario.getCorreo().matches("^[\\w-.]+@[\\w-]+\\.[a-zA-Z]{2,}$")
+                || usuario.getContrasena().length() < 6
+                || usuario.getRol().trim().isEmpty()
+                || !usuario.getRol().toUpperCase().equals("TECNICO");
+    }
+
+    @Benchmark
+    public boolean validarReferenciaRegex() {
+        return !referencia.getCodigo().matches("^RF\\d+$")
+                || referencia.getCodigo().trim().isEmpty()
+                || referencia.getNombre().trim().isEmpty();
+    }
+}
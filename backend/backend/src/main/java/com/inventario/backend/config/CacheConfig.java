@@ -0,0 +1,15 @@
+package com.inventario.backend.config;
+
+import org.springframework.cache.annotation.EnableCaching;
+import org.springframework.context.annotation.Configuration;
+
+// Caché en memoria (Caffeine). Tamaño, TTL y estadísticas se definen en
+// spring.cache.caffeine.spec dentro de application.properties.
+@Configuration
+@EnableCaching
+public class CacheConfig {
+
+    public static final String REFERENCIAS_POR_ID = "referenciasPorId";
+    public static final String REFERENCIAS_POR_CODIGO = "referenciasPorCodigo";
+    public static final String REFERENCIAS_POR_ESTADO = "referenciasPorEstado";
+}
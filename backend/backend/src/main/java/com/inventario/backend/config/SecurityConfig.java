@@ -1,30 +1,100 @@
 package com.inventario.backend.config;
 
+import com.inventario.backend.security.FiltroLimites;
+import com.inventario.backend.security.FiltroToken;
+import com.inventario.backend.security.LimitadorPeticiones;
+import com.inventario.backend.security.TokenService;
+
+import jakarta.servlet.DispatcherType;
+import org.springframework.boot.actuate.autoconfigure.security.servlet.EndpointRequest;
+import org.springframework.boot.actuate.health.HealthEndpoint;
+import org.springframework.boot.actuate.metrics.export.prometheus.PrometheusScrapeEndpoint;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.security.authorization.AuthorizationDecision;
+import org.springframework.security.authorization.AuthorizationManager;
 import org.springframework.security.config.annotation.web.configuration.EnableWebSecurity;
 import org.springframework.security.config.annotation.web.builders.HttpSecurity;
+import org.springframework.security.config.http.SessionCreationPolicy;
+import org.springframework.security.core.Authentication;
 import org.springframework.security.web.SecurityFilterChain;
 import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.security.web.access.intercept.RequestAuthorizationContext;
+import org.springframework.security.web.authentication.HttpStatusEntryPoint;
+import org.springframework.security.web.authentication.UsernamePasswordAuthenticationFilter;
 
 @Configuration
 @EnableWebSecurity
 public class SecurityConfig {
 
     @Bean
-    public SecurityFilterChain filterChain(HttpSecurity http) throws Exception {
+    public SecurityFilterChain filterChain(HttpSecurity http, TokenService tokenService,
+                                           LimitadorPeticiones limitador) throws Exception {
         http
             .csrf(csrf -> csrf.disable())
+            .sessionManagement(sesion -> sesion.sessionCreationPolicy(SessionCreationPolicy.STATELESS))
             .authorizeHttpRequests(auth -> auth
-                .anyRequest().permitAll()
+                // Reenvíos internos (respuestas asíncronas y páginas de error)
+                .dispatcherTypeMatchers(DispatcherType.ASYNC, DispatcherType.ERROR).permitAll()
+                .requestMatchers(HttpMethod.OPTIONS, "/**").permitAll()
+
+                //  Actuator (puerto de administración): salud y scrape de Prometheus sin token
+                .requestMatchers(EndpointRequest.to(HealthEndpoint.class, PrometheusScrapeEndpoint.class)).permitAll()
+                .requestMatchers(EndpointRequest.toAnyEndpoint()).hasRole("ADMIN")
+
+                //  Login (emite el token)
+                .requestMatchers(HttpMethod.POST, "/api/usuarios/login", "/auth/login").permitAll()
+
+                //  Usuarios: administración solo ADMIN; cada usuario puede ver y editar su perfil
+                .requestMatchers("/api/usuarios/exportar", "/api/usuarios/changes", "/api/usuarios/eventos").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/usuarios/{idUsuario}").access(adminOPropietario())
+                .requestMatchers(HttpMethod.PUT, "/api/usuarios/{idUsuario}").access(adminOPropietario())
+                .requestMatchers("/api/usuarios/**", "/api/usuarios").hasRole("ADMIN")
+
+                //  Referencias: lectura para cualquier usuario autenticado, escritura solo ADMIN
+                .requestMatchers(HttpMethod.GET, "/api/referencias/exportar").hasRole("ADMIN")
+                .requestMatchers(HttpMethod.GET, "/api/referencias/**", "/api/referencias").authenticated()
+                .requestMatchers("/api/referencias/**").hasRole("ADMIN")
+
+                //  Inventario: cualquier usuario autenticado consulta y registra movimientos
+                .requestMatchers(HttpMethod.POST, "/api/inventario/saldos/reconstruir").hasRole("ADMIN")
+                .requestMatchers("/api/inventario/**").authenticated()
+
+                //  Analítica del panel de inicio y registro de auditoría
+                .requestMatchers("/api/analitica/**", "/api/auditoria/**", "/api/auditoria").hasRole("ADMIN")
+
+                //  Bandeja de salida para integraciones
+                .requestMatchers("/api/outbox/**", "/api/outbox").hasRole("ADMIN")
+
+                .anyRequest().authenticated()
             )
+            .exceptionHandling(ex -> ex.authenticationEntryPoint(new HttpStatusEntryPoint(HttpStatus.UNAUTHORIZED)))
+            .addFilterBefore(new FiltroToken(tokenService), UsernamePasswordAuthenticationFilter.class)
+            //  Límites de frecuencia y de concurrencia antes de verificar el token
+            .addFilterBefore(new FiltroLimites(limitador), FiltroToken.class)
             .httpBasic(httpBasic -> httpBasic.disable())
             .formLogin(form -> form.disable());
 
         return http.build();
     }
 
+    //  ADMIN, o el mismo usuario del {idUsuario} de la ruta
+    private AuthorizationManager<RequestAuthorizationContext> adminOPropietario() {
+        return (autenticacion, contexto) -> {
+            Authentication auth = autenticacion.get();
+            if (auth == null || !auth.isAuthenticated()) {
+                return new AuthorizationDecision(false);
+            }
+            boolean esAdmin = auth.getAuthorities().stream()
+                    .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+            String idRuta = contexto.getVariables().get("idUsuario");
+            return new AuthorizationDecision(esAdmin || auth.getName().equals(idRuta));
+        };
+    }
+
     //  Agrega este bean para que funcione el PasswordEncoder
     @Bean
     public PasswordEncoder passwordEncoder() {
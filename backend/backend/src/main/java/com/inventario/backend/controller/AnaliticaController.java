@@ -0,0 +1,35 @@
+package com.inventario.backend.controller;
+
+import com.inventario.backend.dto.SerieMovimientos;
+import com.inventario.backend.metricas.PresupuestoSql;
+import com.inventario.backend.service.AnaliticaService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.format.annotation.DateTimeFormat;
+import org.springframework.web.bind.annotation.*;
+
+import java.time.LocalDate;
+
+@RestController
+@RequestMapping("/api/analitica")
+@CrossOrigin(origins = "*")
+@PresupuestoSql(1)
+public class AnaliticaController {
+
+    @Autowired
+    private AnaliticaService analiticaService;
+
+    // ----------------------------------------------------
+    // A01 Tendencia de movimientos (solo ADMIN)
+    //   /movimientos?agrupar=dia|semana|mes&desde=2026-01-01&hasta=2026-06-30&referencia=1
+    //   Sin referencia: todas; sin fechas: últimos 30 días, 12 semanas o 12 meses
+    // ----------------------------------------------------
+    @GetMapping("/movimientos")
+    public SerieMovimientos tendencia(
+            @RequestParam(required = false) Long referencia,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate desde,
+            @RequestParam(required = false) @DateTimeFormat(iso = DateTimeFormat.ISO.DATE) LocalDate hasta,
+            @RequestParam(defaultValue = "dia") String agrupar) {
+        return analiticaService.obtenerSerie(referencia, desde, hasta, agrupar);
+    }
+}
@@ -0,0 +1,32 @@
+package com.inventario.backend.controller;
+
+import com.inventario.backend.dto.PaginaAuditoria;
+import com.inventario.backend.metricas.PresupuestoSql;
+import com.inventario.backend.service.AuditoriaService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/auditoria")
+@CrossOrigin(origins = "*")
+@PresupuestoSql(1)
+public class AuditoriaController {
+
+    @Autowired
+    private AuditoriaService auditoriaService;
+
+    // ----------------------------------------------------
+    // AU01 Registro de auditoría (solo ADMIN), del más reciente al más antiguo
+    //   /api/auditoria?entidad=usuario&idEntidad=5&idUsuario=1&antes=<cursor>&tamano=50
+    // ----------------------------------------------------
+    @GetMapping
+    public PaginaAuditoria listar(
+            @RequestParam(required = false) String entidad,
+            @RequestParam(required = false) Long idEntidad,
+            @RequestParam(required = false) Long idUsuario,
+            @RequestParam(required = false) String antes,
+            @RequestParam(required = false) Integer tamano) {
+        return auditoriaService.obtenerPagina(entidad, idEntidad, idUsuario, antes, tamano);
+    }
+}
@@ -1,21 +1,24 @@
 package com.inventario.backend.controller;
 
-import com.inventario.backend.model.Usuario;
-import com.inventario.backend.repository.UsuarioRepository;
+import com.inventario.backend.dto.SesionUsuario;
+import com.inventario.backend.metricas.PresupuestoSql;
+import com.inventario.backend.security.TokenService;
+import com.inventario.backend.service.UsuarioService;
 import lombok.RequiredArgsConstructor;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 
-import java.util.Optional;
-import java.util.Map;
+import java.util.concurrent.CompletableFuture;
 
 @RestController
 @RequestMapping("/auth")
 @RequiredArgsConstructor
 @CrossOrigin(origins = "*")
+@PresupuestoSql(1)
 public class AuthController {
 
-    private final UsuarioRepository usuarioRepository;
+    private final UsuarioService usuarioService;
+    private final TokenService tokenService;
 
     // DTO para recibir las credenciales
     public static class LoginRequest {
@@ -23,23 +26,12 @@ public class AuthController {
         public String contrasena;
     }
 
-    
-
+    //  Misma verificación que /api/usuarios/login (BCrypt en su pool) y emisión del token
     @PostMapping("/login")
-public ResponseEntity<?> login(@RequestBody LoginRequest request) {
-    Optional<Usuario> usuarioOpt = usuarioRepository.findByCedula(request.cedula);
-
-    if (usuarioOpt.isEmpty()) {
-        return ResponseEntity.status(401).body(Map.of("mensaje", "Cédula no encontrada"));
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody LoginRequest request) {
+        return usuarioService.login(request.cedula, request.contrasena)
+                .<ResponseEntity<?>>thenApply(usuario ->
+                        ResponseEntity.ok(SesionUsuario.de(usuario, tokenService.emitir(usuario))))
+                .exceptionally(RespuestasLogin::deError);
     }
-
-    Usuario usuario = usuarioOpt.get();
-
-    if (!usuario.getContrasena().equals(request.contrasena)) {
-        return ResponseEntity.status(401).body(Map.of("mensaje", "Contraseña incorrecta"));
-    }
-
-    usuario.setContrasena(null);
-    return ResponseEntity.ok(usuario);
-}
 }
@@ -0,0 +1,80 @@
+package com.inventario.backend.controller;
+
+import com.inventario.backend.dto.PaginaCambios;
+import com.inventario.backend.dto.ResultadoReconstruccion;
+import com.inventario.backend.metricas.PresupuestoSql;
+import com.inventario.backend.model.Movimiento;
+import com.inventario.backend.model.Saldo;
+import com.inventario.backend.service.AlmacenIdempotencia;
+import com.inventario.backend.service.InventarioService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.web.bind.annotation.*;
+
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+@RestController
+@RequestMapping("/api/inventario")
+@CrossOrigin(origins = "*")
+@PresupuestoSql(1)
+public class InventarioController {
+
+    @Autowired
+    private InventarioService inventarioService;
+
+    @Autowired
+    private AlmacenIdempotencia almacenIdempotencia;
+
+    // ----------------------------------------------------
+    // I01 Registrar movimientos (uno o varios; el lote se guarda completo o no se guarda)
+    //   [{"idReferencia": 1, "tipo": "ENTRADA", "cantidad": 10, "observacion": "..."}]
+    //   Idempotency-Key opcional: un reintento con la misma clave no repite los movimientos
+    // ----------------------------------------------------
+    @PostMapping("/movimientos")
+    @PresupuestoSql(3) // referencias activas e INSERT; si falta stock, los saldos actuales
+    public ResponseEntity<?> registrarMovimientos(
+            @RequestBody List<Movimiento> movimientos,
+            @RequestHeader(value = AlmacenIdempotencia.CABECERA, required = false) String claveIdempotencia,
+            Authentication autenticacion) {
+        return almacenIdempotencia.ejecutarSincrono(claveIdempotencia, "inventario.movimientos", () ->
+                ResponseEntity.ok(inventarioService.registrar(movimientos, Long.valueOf(autenticacion.getName()))),
+                movimientos);
+    }
+
+    // ----------------------------------------------------
+    // I02 Historial de una referencia: /movimientos?referencia=1&since=<token>&tamano=100
+    // ----------------------------------------------------
+    @GetMapping("/movimientos")
+    public PaginaCambios<Movimiento> historial(
+            @RequestParam Long referencia,
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer tamano) {
+        return inventarioService.obtenerHistorial(referencia, since, tamano);
+    }
+
+    // ----------------------------------------------------
+    // I03 Stock actual (una fila por clave, sin sumar el historial)
+    // ----------------------------------------------------
+    @GetMapping("/saldos/{idReferencia}")
+    public Saldo saldo(@PathVariable Long idReferencia) {
+        return inventarioService.obtenerSaldo(idReferencia);
+    }
+
+    //  Varias referencias: /saldos?ids=1,2,3 (las que no tienen movimientos no aparecen)
+    @GetMapping("/saldos")
+    public List<Saldo> saldos(@RequestParam List<Long> ids) {
+        return inventarioService.obtenerSaldos(ids);
+    }
+
+    // ----------------------------------------------------
+    // I04 Reconstruir los saldos desde el historial (solo ADMIN)
+    //   Los INSERT de movimientos esperan mientras dura
+    // ----------------------------------------------------
+    @PostMapping("/saldos/reconstruir")
+    public CompletableFuture<ResponseEntity<ResultadoReconstruccion>> reconstruir() {
+        return inventarioService.reconstruirSaldos().thenApply(ResponseEntity::ok);
+    }
+}
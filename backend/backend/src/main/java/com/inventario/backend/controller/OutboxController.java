@@ -0,0 +1,35 @@
+package com.inventario.backend.controller;
+
+import com.inventario.backend.metricas.PresupuestoSql;
+import com.inventario.backend.service.OutboxService;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+@RestController
+@RequestMapping("/api/outbox")
+@CrossOrigin(origins = "*")
+@PresupuestoSql(1)
+public class OutboxController {
+
+    @Autowired
+    private OutboxService outboxService;
+
+    // ----------------------------------------------------
+    // OB01 Eventos de referencias y usuarios para otros sistemas (solo ADMIN)
+    //   /api/outbox?since=<token>&tamano=500
+    //   tipo: registrada | actualizada | activada | desactivada (referencia)
+    //         registrado | actualizado | activado | desactivado (usuario)
+    // ----------------------------------------------------
+    @GetMapping
+    public ResponseEntity<?> obtenerEventos(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(outboxService.obtenerEventos(since, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+}
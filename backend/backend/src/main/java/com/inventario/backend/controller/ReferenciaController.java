@@ -1,31 +1,101 @@
 package com.inventario.backend.controller;
 
+import com.inventario.backend.dto.ErroresValidacion;
+import com.inventario.backend.dto.PaginaReferencias;
+import com.inventario.backend.dto.ReferenciaPublica;
+import com.inventario.backend.exception.DatosInvalidosException;
+import com.inventario.backend.exception.RegistroDuplicadoException;
+import com.inventario.backend.exception.VersionObsoletaException;
+import com.inventario.backend.metricas.PresupuestoSql;
 import com.inventario.backend.model.Referencia;
+import com.inventario.backend.service.AlmacenIdempotencia;
+import com.inventario.backend.service.DifusionCambios;
+import com.inventario.backend.service.ExportacionService;
+import com.inventario.backend.service.ImportacionReferenciaService;
 import com.inventario.backend.service.ReferenciaService;
+import com.inventario.backend.utils.FormatoArchivo;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.time.Duration;
 import java.util.List;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/referencias")
 @CrossOrigin(origins = "*")
+@PresupuestoSql(1)
 public class ReferenciaController {
 
     @Autowired
     private ReferenciaService referenciaService;
 
+    @Autowired
+    private ImportacionReferenciaService importacionReferenciaService;
+
+    @Autowired
+    private ExportacionService exportacionService;
+
+    @Autowired
+    private DifusionCambios difusionCambios;
+
+    @Autowired
+    private AlmacenIdempotencia almacenIdempotencia;
+
+    // Plazo de las exportaciones en streaming (catálogos grandes tardan varios minutos)
+    @Value("${inventario.exportacion.minutos:10}")
+    private long minutosExportacion;
+
     // ----------------------------------------------------
     // R01 Registrar Referencia
+    //   Idempotency-Key opcional: un reintento con la misma clave recibe la misma respuesta
     // ----------------------------------------------------
     @PostMapping("/registrar")
-    public ResponseEntity<?> registrar(@RequestBody Referencia referencia) {
+    public ResponseEntity<?> registrar(
+            @Valid @RequestBody Referencia referencia,
+            @RequestHeader(value = AlmacenIdempotencia.CABECERA, required = false) String claveIdempotencia) {
+        return almacenIdempotencia.ejecutarSincrono(claveIdempotencia, "referencias.registrar", () -> {
+            try {
+                return ResponseEntity.ok(referenciaService.registrar(referencia));
+            } catch (RegistroDuplicadoException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+            } catch (DatosInvalidosException e) {
+                return ResponseEntity.badRequest().body(ErroresValidacion.de(e));
+            } catch (Exception e) {
+                return ResponseEntity.badRequest().body(e.getMessage());
+            }
+        }, referencia);
+    }
+
+    // ----------------------------------------------------
+    // R01.1 Importación masiva (CSV o NDJSON en el cuerpo)
+    //   Content-Type: text/csv             -> codigo,nombre[,activo]
+    //   Content-Type: application/x-ndjson -> {"codigo":..,"nombre":..,"activo":..}
+    // ----------------------------------------------------
+    @PostMapping("/importar")
+    @PresupuestoSql(PresupuestoSql.SIN_LIMITE) // un INSERT por lote de 500 filas (dos si hay duplicados)
+    public ResponseEntity<?> importar(
+            @RequestParam(required = false) String formato,
+            HttpServletRequest request) {
+        FormatoArchivo tipo = FormatoArchivo.resolver(formato, request.getContentType());
+        if (tipo == null) {
+            return ResponseEntity.badRequest()
+                    .body("Formato no soportado. Use text/csv o application/x-ndjson.");
+        }
         try {
-            return ResponseEntity.ok(referenciaService.registrar(referencia));
-        } catch (Exception e) {
-            return ResponseEntity.badRequest().body(e.getMessage());
+            return ResponseEntity.ok(importacionReferenciaService.importar(request.getInputStream(), tipo));
+        } catch (IOException e) {
+            return ResponseEntity.badRequest().body("No se pudo leer el archivo: " + e.getMessage());
         }
     }
 
@@ -33,15 +103,96 @@ public class ReferenciaController {
     // R02 Obtener TODAS (activas + inactivas)
     // ----------------------------------------------------
     @GetMapping
-    public ResponseEntity<List<Referencia>> obtenerTodas() {
+    public ResponseEntity<List<ReferenciaPublica>> obtenerTodas() {
         return ResponseEntity.ok(referenciaService.obtenerTodas());
     }
 
+    // ----------------------------------------------------
+    // R02.1 Listado paginado, ordenado y filtrado
+    //   /api/referencias/pagina?activo=true&prefijo=RF1&orden=nombre&tamano=50
+    //   /api/referencias/pagina?cursor=<siguienteCursor>&...
+    // ----------------------------------------------------
+    @GetMapping("/pagina")
+    public ResponseEntity<?> obtenerPagina(
+            @RequestParam(required = false) Boolean activo,
+            @RequestParam(required = false) String prefijo,
+            @RequestParam(required = false) String orden,
+            @RequestParam(required = false) String cursor,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            PaginaReferencias pagina =
+                    referenciaService.obtenerPagina(activo, prefijo, orden, cursor, tamano);
+            return ResponseEntity.ok(pagina);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ----------------------------------------------------
+    // R02.2 Búsqueda por prefijo o subcadena de código/nombre
+    //   /api/referencias/buscar?q=RF1&activo=true&limite=20
+    // ----------------------------------------------------
+    @GetMapping("/buscar")
+    public ResponseEntity<List<Referencia>> buscar(
+            @RequestParam("q") String texto,
+            @RequestParam(required = false) Boolean activo,
+            @RequestParam(required = false) Integer limite) {
+        return ResponseEntity.ok(referenciaService.buscar(texto, activo, limite));
+    }
+
+    // ----------------------------------------------------
+    // R02.3 Sincronización incremental
+    //   /api/referencias/changes?since=<token>&tamano=500
+    //   Sin since devuelve todo el catálogo por páginas; luego solo lo que cambió
+    // ----------------------------------------------------
+    @GetMapping("/changes")
+    public ResponseEntity<?> obtenerCambios(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(referenciaService.obtenerCambios(since, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    // ----------------------------------------------------
+    // R02.4 Cambios en tiempo real (Server-Sent Events)
+    //   eventos: registrada | actualizada | eliminada, con la referencia en data
+    // ----------------------------------------------------
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> eventos() {
+        try {
+            return ResponseEntity.ok(difusionCambios.suscribir(DifusionCambios.CANAL_REFERENCIAS));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    // ----------------------------------------------------
+    // R02.5 Exportar catálogo completo en streaming
+    //   /api/referencias/exportar?formato=ndjson|csv&comprimir=true
+    // ----------------------------------------------------
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportar(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(defaultValue = "false") boolean comprimir,
+            HttpServletRequest request) {
+        FormatoArchivo tipo = FormatoArchivo.resolver(formato, null);
+        if (tipo == null) {
+            // 400 en GlobalExceptionHandler; el tipo de retorno debe nombrar StreamingResponseBody
+            // para que Spring escriba el cuerpo en streaming
+            throw new IllegalArgumentException("Formato no soportado. Use csv o ndjson.");
+        }
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarReferencias(salida, tipo, comprimir);
+        return RespuestasExportacion.crear(request, Duration.ofMinutes(minutosExportacion), "referencias", tipo, comprimir, cuerpo);
+    }
+
     // ----------------------------------------------------
     // R03 Obtener solo ACTIVAS
     // ----------------------------------------------------
     @GetMapping("/activas")
-    public ResponseEntity<List<Referencia>> obtenerActivas() {
+    public ResponseEntity<List<ReferenciaPublica>> obtenerActivas() {
         return ResponseEntity.ok(referenciaService.obtenerActivas());
     }
 
@@ -49,7 +200,7 @@ public class ReferenciaController {
     // R04 Obtener solo INACTIVAS
     // ----------------------------------------------------
     @GetMapping("/inactivas")
-    public ResponseEntity<List<Referencia>> obtenerInactivas() {
+    public ResponseEntity<List<ReferenciaPublica>> obtenerInactivas() {
         return ResponseEntity.ok(referenciaService.obtenerInactivas());
     }
 
@@ -59,17 +210,21 @@ public class ReferenciaController {
     //   /api/referencias/estado/false
     // ----------------------------------------------------
     @GetMapping("/estado/{activo}")
-    public ResponseEntity<List<Referencia>> obtenerPorEstado(@PathVariable boolean activo) {
+    public ResponseEntity<List<ReferenciaPublica>> obtenerPorEstado(@PathVariable boolean activo) {
         return ResponseEntity.ok(referenciaService.obtenerPorEstado(activo));
     }
 
     // ----------------------------------------------------
     // R06 Obtener por ID
+    //   ETag = versión; con If-None-Match igual responde 304 sin cuerpo
     // ----------------------------------------------------
     @GetMapping("/{id}")
-    public ResponseEntity<?> obtenerPorId(@PathVariable Long id) {
+    public ResponseEntity<?> obtenerPorId(
+            @PathVariable Long id,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
         try {
-            return ResponseEntity.ok(referenciaService.obtenerPorId(id));
+            ReferenciaPublica referencia = referenciaService.obtenerPorId(id);
+            return Versiones.responder(siNoCoincide, referencia.version(), referencia);
         } catch (Exception e) {
             return ResponseEntity.status(404).body(e.getMessage());
         }
@@ -79,9 +234,12 @@ public class ReferenciaController {
     // R07 Buscar por código
     // ----------------------------------------------------
     @GetMapping("/codigo/{codigo}")
-    public ResponseEntity<?> obtenerPorCodigo(@PathVariable String codigo) {
+    public ResponseEntity<?> obtenerPorCodigo(
+            @PathVariable String codigo,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
         try {
-            return ResponseEntity.ok(referenciaService.obtenerPorCodigo(codigo));
+            ReferenciaPublica referencia = referenciaService.obtenerPorCodigo(codigo);
+            return Versiones.responder(siNoCoincide, referencia.version(), referencia);
         } catch (Exception e) {
             return ResponseEntity.status(404).body(e.getMessage());
         }
@@ -89,13 +247,23 @@ public class ReferenciaController {
 
     // ----------------------------------------------------
     // R08 Actualizar Referencia
+    //   If-Match: "<version>" (opcional) -> 412 si otro usuario la modificó antes
     // ----------------------------------------------------
     @PutMapping("/{id}")
+    @PresupuestoSql(2) // UPDATE ... RETURNING; si no actualizó, una lectura para saber por qué
     public ResponseEntity<?> actualizar(
             @PathVariable Long id,
-            @RequestBody Referencia referencia) {
+            @Valid @RequestBody Referencia referencia,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String siCoincide) {
         try {
-            return ResponseEntity.ok(referenciaService.actualizar(id, referencia));
+            Referencia actualizada = referenciaService.actualizar(id, referencia, Versiones.esperada(siCoincide));
+            return ResponseEntity.ok().eTag(Versiones.etag(actualizada.getVersion())).body(actualizada);
+        } catch (RegistroDuplicadoException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(e.getMessage());
+        } catch (VersionObsoletaException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).body(e.getMessage());
+        } catch (DatosInvalidosException e) {
+            return ResponseEntity.badRequest().body(ErroresValidacion.de(e));
         } catch (Exception e) {
             return ResponseEntity.badRequest().body(e.getMessage());
         }
@@ -105,6 +273,7 @@ public class ReferenciaController {
     // R09 Eliminar referencia (lógico)
     // ----------------------------------------------------
     @DeleteMapping("/eliminar/{id}")
+    @PresupuestoSql(2)
     public ResponseEntity<?> eliminar(@PathVariable Long id) {
         try {
             referenciaService.eliminar(id);
@@ -0,0 +1,46 @@
+package com.inventario.backend.controller;
+
+import com.inventario.backend.utils.FormatoArchivo;
+
+import org.springframework.http.ContentDisposition;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.context.request.async.AsyncWebRequest;
+import org.springframework.web.context.request.async.WebAsyncUtils;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import jakarta.servlet.http.HttpServletRequest;
+
+import java.time.Duration;
+
+// Cabeceras comunes de las descargas en streaming (/exportar)
+// - Plazo propio para la escritura: el resto de peticiones asíncronas conserva el global
+final class RespuestasExportacion {
+
+    private RespuestasExportacion() {
+    }
+
+    static ResponseEntity<StreamingResponseBody> crear(HttpServletRequest request, Duration plazo,
+                                                       String nombreBase, FormatoArchivo formato,
+                                                       boolean comprimir, StreamingResponseBody cuerpo) {
+        // El adaptador ya creó la petición asíncrona con el plazo global; el cuerpo en streaming
+        // no trae plazo propio, así que se respeta el que se fije aquí
+        AsyncWebRequest asincrona = WebAsyncUtils.getAsyncManager(request).getAsyncWebRequest();
+        if (asincrona != null) {
+            asincrona.setTimeout(plazo.toMillis());
+        }
+
+        String extension = formato == FormatoArchivo.CSV ? ".csv" : ".ndjson";
+        String nombreArchivo = nombreBase + extension;
+
+        HttpHeaders cabeceras = new HttpHeaders();
+        cabeceras.setContentType(MediaType.parseMediaType(formato.getTipoContenido() + ";charset=UTF-8"));
+        cabeceras.setContentDisposition(ContentDisposition.attachment().filename(nombreArchivo).build());
+        if (comprimir) {
+            // Compresión de transporte: el cliente HTTP descomprime de forma transparente
+            cabeceras.set(HttpHeaders.CONTENT_ENCODING, "gzip");
+        }
+        return ResponseEntity.ok().headers(cabeceras).body(cuerpo);
+    }
+}
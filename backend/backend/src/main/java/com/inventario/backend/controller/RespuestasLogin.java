@@ -0,0 +1,46 @@
+package com.inventario.backend.controller;
+
+import com.inventario.backend.exception.LimiteExcedidoException;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+import java.util.Map;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+
+// Errores del login asíncrono (/auth/login y /api/usuarios/login): mismo estado y mismo
+// cuerpo {"mensaje": ...} en los dos endpoints
+final class RespuestasLogin {
+
+    private static final Logger log = LoggerFactory.getLogger(RespuestasLogin.class);
+
+    private RespuestasLogin() {
+    }
+
+    static ResponseEntity<?> deError(Throwable error) {
+        Throwable causa = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
+
+        // Credenciales incorrectas, usuario inactivo o contraseña vacía
+        if (causa instanceof IllegalArgumentException) {
+            return ResponseEntity.status(HttpStatus.UNAUTHORIZED).body(Map.of("mensaje", causa.getMessage()));
+        }
+        if (causa instanceof LimiteExcedidoException limite) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(limite.getSegundos()))
+                    .body(Map.of("mensaje", limite.getMessage()));
+        }
+        if (causa instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body(Map.of("mensaje", "El servidor está ocupado, intenta de nuevo."));
+        }
+        log.error("Error interno en el login", causa);
+        return ResponseEntity.status(HttpStatus.INTERNAL_SERVER_ERROR).body(Map.of("mensaje", "Error interno del servidor"));
+    }
+}
@@ -1,126 +1,228 @@
 package com.inventario.backend.controller;
 
+import com.inventario.backend.dto.CambioEstadoLote;
+import com.inventario.backend.dto.ErroresValidacion;
+import com.inventario.backend.dto.SesionUsuario;
+import com.inventario.backend.dto.UsuarioPublico;
+import com.inventario.backend.exception.DatosInvalidosException;
+import com.inventario.backend.exception.LimiteExcedidoException;
+import com.inventario.backend.metricas.PresupuestoSql;
 import com.inventario.backend.model.Usuario;
+import com.inventario.backend.security.TokenService;
+import com.inventario.backend.service.AlmacenIdempotencia;
+import com.inventario.backend.service.DifusionCambios;
+import com.inventario.backend.service.ExportacionService;
 import com.inventario.backend.service.UsuarioService;
-import com.inventario.backend.utils.ValidadorDatos;
-import com.inventario.backend.repository.UsuarioRepository;
+import com.inventario.backend.utils.FormatoArchivo;
 
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.validation.Valid;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.http.HttpStatus;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
+import org.springframework.security.core.Authentication;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.time.Duration;
 import java.util.List;
 import java.util.Map;
 import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
 
 @RestController
 @RequestMapping("/api/usuarios")
 @CrossOrigin(origins = "*")
+@PresupuestoSql(1)
 public class UsuarioController {
 
-    @Autowired
-    private UsuarioRepository usuarioRepository;
+    private static final Logger log = LoggerFactory.getLogger(UsuarioController.class);
 
     @Autowired
     private UsuarioService usuarioService;
 
-    //  Registrar un nuevo usuario
-    @PostMapping("/registrar")
-    public ResponseEntity<?> registrarUsuario(@RequestBody Usuario usuario) {
-        try {
-            // Validar datos antes de guardar
-            ValidadorDatos.validarUsuario(usuario);
-
-            // Verificar si ya existe cédula o correo
-            if (usuarioRepository.findByCedula(usuario.getCedula()).isPresent()) {
-                return ResponseEntity.status(400).body("La cédula ya está registrada.");
-            }
-            if (usuarioRepository.findByCorreo(usuario.getCorreo()).isPresent()) {
-                return ResponseEntity.status(400).body("El correo ya está registrado.");
-            }
-
-            //  Encriptar contraseña antes de guardar
-            BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
-            usuario.setContrasena(passwordEncoder.encode(usuario.getContrasena()));
-
-            // Guardar usuario
-            usuarioRepository.save(usuario);
-            usuario.setContrasena(null); // No devolver la contraseña
-            return ResponseEntity.ok(usuario);
+    @Autowired
+    private ExportacionService exportacionService;
 
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(400).body(e.getMessage());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("Error al registrar el usuario.");
-        }
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private DifusionCambios difusionCambios;
+
+    @Autowired
+    private AlmacenIdempotencia almacenIdempotencia;
+
+    // Plazo de las exportaciones en streaming (catálogos grandes tardan varios minutos)
+    @Value("${inventario.exportacion.minutos:10}")
+    private long minutosExportacion;
+
+    //  Registrar un nuevo usuario (el hash BCrypt corre fuera del hilo de la petición)
+    //  Idempotency-Key opcional: un reintento con la misma clave recibe la misma respuesta
+    @PostMapping("/registrar")
+    @PresupuestoSql(2) // cédula o correo existentes e INSERT
+    public CompletableFuture<ResponseEntity<?>> registrarUsuario(
+            @Valid @RequestBody Usuario usuario,
+            @RequestHeader(value = AlmacenIdempotencia.CABECERA, required = false) String claveIdempotencia) {
+        // La contraseña no se serializa: va aparte en la huella
+        return almacenIdempotencia.ejecutar(claveIdempotencia, "usuarios.registrar", () ->
+                usuarioService.registrarUsuario(usuario)
+                        .<ResponseEntity<?>>thenApply(guardado -> ResponseEntity.ok(UsuarioPublico.de(guardado)))
+                        .exceptionally(error -> respuestaDeError(error, "Error al registrar el usuario.")),
+                usuario, usuario.getContrasena());
     }
 
-    //  Actualizar datos del usuario
+    //  Actualizar datos del usuario (If-Match: "<version>" opcional -> 412 si cambió antes)
     @PutMapping("/{idUsuario}")
-    public Usuario actualizar(@PathVariable Long idUsuario, @RequestBody Usuario usuario) {
-        return usuarioService.actualizarPerfil(idUsuario, usuario);
+    @PresupuestoSql(2)
+    public ResponseEntity<UsuarioPublico> actualizar(@PathVariable Long idUsuario, @Valid @RequestBody Usuario usuario,
+                              @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String siCoincide,
+                              Authentication autenticacion) {
+        //  Solo un ADMIN puede cambiar roles; un TECNICO conserva el suyo al editar su perfil
+        boolean esAdmin = autenticacion != null && autenticacion.getAuthorities().stream()
+                .anyMatch(a -> a.getAuthority().equals("ROLE_ADMIN"));
+        Usuario actualizado = usuarioService.actualizarPerfil(idUsuario, usuario,
+                Versiones.esperada(siCoincide), esAdmin);
+        return ResponseEntity.ok().eTag(Versiones.etag(actualizado.getVersion())).body(UsuarioPublico.de(actualizado));
     }
 
     //  Listar todos los usuarios
     @GetMapping
-    public List<Usuario> listarUsuarios() {
+    public List<UsuarioPublico> listarUsuarios() {
         return usuarioService.obtenerTodos();
     }
 
-    //  Obtener un usuario por su ID
+    //  Cambios desde un token: /api/usuarios/changes?since=<token>&tamano=500
+    @GetMapping("/changes")
+    public ResponseEntity<?> obtenerCambios(
+            @RequestParam(required = false) String since,
+            @RequestParam(required = false) Integer tamano) {
+        try {
+            return ResponseEntity.ok(usuarioService.obtenerCambios(since, tamano));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
+
+    //  Cambios de usuarios en tiempo real (Server-Sent Events)
+    @GetMapping(value = "/eventos", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<?> eventos() {
+        try {
+            return ResponseEntity.ok(difusionCambios.suscribir(DifusionCambios.CANAL_USUARIOS));
+        } catch (RejectedExecutionException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(e.getMessage());
+        }
+    }
+
+    //  Exportar todos los usuarios en streaming (ndjson o csv, opcionalmente gzip)
+    @GetMapping("/exportar")
+    public ResponseEntity<StreamingResponseBody> exportarUsuarios(
+            @RequestParam(defaultValue = "ndjson") String formato,
+            @RequestParam(defaultValue = "false") boolean comprimir,
+            HttpServletRequest request) {
+        FormatoArchivo tipo = FormatoArchivo.resolver(formato, null);
+        if (tipo == null) {
+            // 400 en GlobalExceptionHandler; el tipo de retorno debe nombrar StreamingResponseBody
+            // para que Spring escriba el cuerpo en streaming
+            throw new IllegalArgumentException("Formato no soportado. Use csv o ndjson.");
+        }
+        StreamingResponseBody cuerpo = salida -> exportacionService.exportarUsuarios(salida, tipo, comprimir);
+        return RespuestasExportacion.crear(request, Duration.ofMinutes(minutosExportacion), "usuarios", tipo, comprimir, cuerpo);
+    }
+
+    //  Obtener un usuario por su ID (ETag = versión; 304 si no cambió)
     @GetMapping("/{idUsuario}")
-    public ResponseEntity<Usuario> obtenerUsuarioPorId(@PathVariable Long idUsuario) {
-        Optional<Usuario> usuario = usuarioService.obtenerPorId(idUsuario);
-        return usuario.map(ResponseEntity::ok)
+    public ResponseEntity<UsuarioPublico> obtenerUsuarioPorId(
+            @PathVariable Long idUsuario,
+            @RequestHeader(value = HttpHeaders.IF_NONE_MATCH, required = false) String siNoCoincide) {
+        Optional<UsuarioPublico> usuario = usuarioService.obtenerPorId(idUsuario);
+        return usuario.map(u -> Versiones.responder(siNoCoincide, u.version(), u))
                 .orElse(ResponseEntity.notFound().build());
     }
 
     //  Cambiar el estado del usuario
     @PutMapping("/{id}/estado")
+    @PresupuestoSql(2)
     public ResponseEntity<?> cambiarEstadoUsuario(
             @PathVariable Long id,
             @RequestBody Map<String, Boolean> body) {
 
         boolean activo = body.get("activo");
-        Optional<Usuario> optionalUsuario = usuarioRepository.findById(id);
-
-        if (optionalUsuario.isEmpty()) {
+        try {
+            return ResponseEntity.ok(UsuarioPublico.de(usuarioService.cambiarEstadoUsuario(id, activo)));
+        } catch (IllegalArgumentException e) {
             return ResponseEntity.status(HttpStatus.NOT_FOUND)
                     .body("Usuario no encontrado");
         }
+    }
 
-        Usuario usuario = optionalUsuario.get();
-        usuario.setActivo(activo);
-        usuarioRepository.save(usuario);
+    //  Activar o desactivar varios usuarios con un solo UPDATE (resultado por id)
+    @PutMapping("/lote/estado")
+    @PresupuestoSql(2) // UPDATE ... RETURNING y, si hace falta, los ids sin cambios
+    public ResponseEntity<?> cambiarEstadoLote(@RequestBody CambioEstadoLote cambio) {
+        try {
+            return ResponseEntity.ok(usuarioService.cambiarEstadoLote(cambio.getIds(), cambio.isActivo()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(e.getMessage());
+        }
+    }
 
-        return ResponseEntity.ok(usuario);
+    //  Registrar varios usuarios (hashes en paralelo, un INSERT con el resultado de cada fila)
+    @PostMapping("/lote/registrar")
+    @PresupuestoSql(3) // existentes e INSERT; si alguna fila se saltó, cuál de sus datos ya existía
+    public CompletableFuture<ResponseEntity<?>> registrarLote(
+            @RequestBody List<Usuario> usuarios,
+            @RequestHeader(value = AlmacenIdempotencia.CABECERA, required = false) String claveIdempotencia) {
+        return almacenIdempotencia.ejecutar(claveIdempotencia, "usuarios.lote.registrar", () ->
+                usuarioService.registrarLote(usuarios)
+                        .<ResponseEntity<?>>thenApply(ResponseEntity::ok)
+                        .exceptionally(error -> respuestaDeError(error, "Error al registrar los usuarios.")),
+                usuarios, usuarios == null ? null : usuarios.stream().map(Usuario::getContrasena).toList());
     }
 
-    // Login de usuario (por cédula y contraseña)
+    // Login de usuario (por cédula y contraseña); errores iguales a /auth/login (RespuestasLogin)
     @PostMapping("/login")
-    public ResponseEntity<?> login(@RequestBody Map<String, String> credenciales) {
-        try {
-            String cedula = credenciales.get("cedula");
-            String contrasena = credenciales.get("contrasena");
-
-            Optional<Usuario> usuarioOpt = usuarioService.login(cedula, contrasena);
+    public CompletableFuture<ResponseEntity<?>> login(@RequestBody Map<String, String> credenciales) {
+        String cedula = credenciales.get("cedula");
+        String contrasena = credenciales.get("contrasena");
+
+        return usuarioService.login(cedula, contrasena)
+                .<ResponseEntity<?>>thenApply(usuario ->
+                        // 🔒 No se envía la contraseña; el token evita volver a enviar credenciales
+                        ResponseEntity.ok(SesionUsuario.de(usuario, tokenService.emitir(usuario))))
+                .exceptionally(RespuestasLogin::deError);
+    }
 
-            if (usuarioOpt.isPresent()) {
-                Usuario usuario = usuarioOpt.get();
-                usuario.setContrasena(null); // 🔒 No enviar la contraseña
-                return ResponseEntity.ok(usuario);
-            } else {
-                return ResponseEntity.status(401).body("Credenciales inválidas");
-            }
+    //  Traduce el error de una operación asíncrona a la respuesta HTTP
+    private ResponseEntity<?> respuestaDeError(Throwable error, String mensajeGenerico) {
+        Throwable causa = error instanceof CompletionException && error.getCause() != null
+                ? error.getCause()
+                : error;
 
-        } catch (IllegalArgumentException e) {
-            return ResponseEntity.status(400).body(e.getMessage());
-        } catch (Exception e) {
-            e.printStackTrace();
-            return ResponseEntity.status(500).body("Error interno del servidor");
+        if (causa instanceof DatosInvalidosException invalidos) {
+            return ResponseEntity.badRequest().body(ErroresValidacion.de(invalidos));
+        }
+        if (causa instanceof IllegalArgumentException) {
+            return ResponseEntity.status(400).body(causa.getMessage());
+        }
+        if (causa instanceof LimiteExcedidoException limite) {
+            return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                    .header(HttpHeaders.RETRY_AFTER, Long.toString(limite.getSegundos()))
+                    .body(limite.getMessage());
+        }
+        if (causa instanceof RejectedExecutionException) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                    .header(HttpHeaders.RETRY_AFTER, "1")
+                    .body("El servidor está ocupado, intenta de nuevo en unos segundos.");
         }
+        log.error(mensajeGenerico, causa);
+        return ResponseEntity.status(500).body(mensajeGenerico);
     }
 }
@@ -0,0 +1,48 @@
+package com.inventario.backend.controller;
+
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+
+// ETag a partir de la columna version, y lectura de If-None-Match / If-Match
+final class Versiones {
+
+    private Versiones() {
+    }
+
+    static String etag(Long version) {
+        return "\"" + (version == null ? 0L : version) + "\"";
+    }
+
+    // 200 con ETag, o 304 sin cuerpo si el cliente ya tiene esa versión
+    static <T> ResponseEntity<T> responder(String siNoCoincide, Long version, T cuerpo) {
+        String etag = etag(version);
+        if (siNoCoincide != null) {
+            for (String etiqueta : siNoCoincide.split(",")) {
+                String valor = etiqueta.trim();
+                if (valor.startsWith("W/")) {
+                    valor = valor.substring(2);
+                }
+                if (valor.equals("*") || valor.equals(etag)) {
+                    return ResponseEntity.status(HttpStatus.NOT_MODIFIED).eTag(etag).build();
+                }
+            }
+        }
+        return ResponseEntity.ok().eTag(etag).body(cuerpo);
+    }
+
+    // Versión pedida en If-Match; null si no se envió o es "*"
+    static Long esperada(String siCoincide) {
+        if (siCoincide == null || siCoincide.isBlank() || siCoincide.trim().equals("*")) {
+            return null;
+        }
+        String valor = siCoincide.trim();
+        if (valor.length() < 3 || valor.charAt(0) != '"' || valor.charAt(valor.length() - 1) != '"') {
+            throw new IllegalArgumentException("If-Match debe ser una sola versión entre comillas, por ejemplo \"3\".");
+        }
+        try {
+            return Long.valueOf(valor.substring(1, valor.length() - 1));
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("If-Match no corresponde a una versión válida.");
+        }
+    }
+}
@@ -0,0 +1,16 @@
+package com.inventario.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// Cuerpo de PUT /api/usuarios/lote/estado: usuarios a activar o desactivar
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class CambioEstadoLote {
+
+    private List<Long> ids;
+
+    private boolean activo;
+}
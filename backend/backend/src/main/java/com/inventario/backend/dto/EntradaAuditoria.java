@@ -0,0 +1,17 @@
+package com.inventario.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+// Un evento del registro de auditoría. detalle es el JSON guardado tal cual
+// (estado del usuario o la referencia después del cambio).
+public record EntradaAuditoria(
+        Long idAuditoria,
+        Instant fecha,
+        Long idUsuario,
+        String entidad,
+        Long idEntidad,
+        String accion,
+        @JsonRawValue String detalle) {
+}
@@ -0,0 +1,26 @@
+package com.inventario.backend.dto;
+
+import com.inventario.backend.exception.DatosInvalidosException;
+import org.springframework.validation.BindingResult;
+import org.springframework.validation.FieldError;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Cuerpo de un 400 por datos inválidos: el mensaje completo y el error de cada campo.
+// "message" es el nombre que el frontend ya lee cuando el cuerpo no es texto.
+public record ErroresValidacion(String message, Map<String, String> errores) {
+
+    public static ErroresValidacion de(DatosInvalidosException e) {
+        return new ErroresValidacion(e.getMessage(), e.getErrores());
+    }
+
+    // @Valid en el cuerpo de la petición (anotaciones de Usuario y Referencia): un error por campo
+    public static ErroresValidacion de(BindingResult resultado) {
+        Map<String, String> errores = new LinkedHashMap<>();
+        for (FieldError error : resultado.getFieldErrors()) {
+            errores.putIfAbsent(error.getField(), error.getDefaultMessage());
+        }
+        return new ErroresValidacion(String.join(" ", errores.values()), errores);
+    }
+}
@@ -0,0 +1,23 @@
+package com.inventario.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonRawValue;
+
+import java.time.Instant;
+
+// Un evento de la bandeja de salida (/api/outbox). secuencia identifica el evento; con la transacción
+// que lo escribió ordena los eventos y forma el token (TokenCambio).
+// carga es la fila de la referencia o el usuario después del cambio, tal cual se guardó.
+public record EventoOutbox(
+        Long secuencia,
+        @JsonIgnore Long transaccion,
+        Instant fecha,
+        String agregado,
+        Long idAgregado,
+        String tipo,
+        @JsonRawValue String carga) {
+
+    public TokenCambio tokenCambio() {
+        return TokenCambio.de(transaccion, secuencia);
+    }
+}
@@ -0,0 +1,17 @@
+package com.inventario.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+
+// Ventana del registro de auditoría, del evento más reciente al más antiguo.
+// siguienteCursor (id del último evento) se envía como antes en la siguiente llamada; null = no hay más.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaAuditoria {
+
+    private List<EntradaAuditoria> elementos;
+
+    private String siguienteCursor;
+}
@@ -0,0 +1,31 @@
+package com.inventario.backend.dto;
+
+import lombok.*;
+
+import java.util.List;
+import java.util.function.Function;
+
+// Ventana de la sincronización incremental (/changes?since=<token>).
+// elementos: filas insertadas, actualizadas o desactivadas después del token, en orden de cambio.
+// token: se envía como since en la siguiente llamada; hayMas indica que conviene pedir otra vez ya.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaCambios<T> {
+
+    private List<T> elementos;
+
+    private String token;
+
+    private boolean hayMas;
+
+    // filas trae un elemento de más (limite + 1) para saber si hay otra página sin COUNT.
+    // El token es la transacción y la posición dentro de ella (TokenCambio)
+    public static <T> PaginaCambios<T> de(List<T> filas, int limite, TokenCambio desde,
+                                          Function<T, TokenCambio> token) {
+        boolean hayMas = filas.size() > limite;
+        List<T> elementos = hayMas ? List.copyOf(filas.subList(0, limite)) : filas;
+        TokenCambio ultimo = elementos.isEmpty() ? desde : token.apply(elementos.get(elementos.size() - 1));
+        return new PaginaCambios<>(elementos, ultimo.toString(), hayMas);
+    }
+}
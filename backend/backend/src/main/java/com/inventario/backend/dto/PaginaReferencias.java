@@ -0,0 +1,18 @@
+package com.inventario.backend.dto;
+
+import com.inventario.backend.model.Referencia;
+import lombok.*;
+
+import java.util.List;
+
+// Ventana de resultados del listado paginado de referencias.
+// siguienteCursor es null cuando ya no hay más resultados.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class PaginaReferencias {
+
+    private List<Referencia> elementos;
+
+    private String siguienteCursor;
+}
@@ -0,0 +1,19 @@
+package com.inventario.backend.dto;
+
+import com.inventario.backend.model.Referencia;
+
+// Copia inmutable de una referencia para las lecturas cacheadas: la caché comparte el
+// objeto entre peticiones y una entidad JPA se puede modificar o quedar asociada a una sesión.
+// Los listados la leen como proyección, sin cargar entidades.
+public record ReferenciaPublica(
+        Long idReferencia,
+        String codigo,
+        String nombre,
+        boolean activo,
+        Long version) {
+
+    public static ReferenciaPublica de(Referencia referencia) {
+        return new ReferenciaPublica(referencia.getIdReferencia(), referencia.getCodigo(),
+                referencia.getNombre(), referencia.isActivo(), referencia.getVersion());
+    }
+}
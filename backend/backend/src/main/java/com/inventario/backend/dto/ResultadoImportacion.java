@@ -0,0 +1,33 @@
+package com.inventario.backend.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Reporte de una importación masiva: totales y errores por fila.
+// Solo se detallan los primeros errores; totalErrores lleva la cuenta completa.
+@Data
+@NoArgsConstructor
+public class ResultadoImportacion {
+
+    private long procesadas;
+
+    private long insertadas;
+
+    private long totalErrores;
+
+    private List<ErrorFila> errores = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class ErrorFila {
+
+        private long linea;
+
+        private String codigo;
+
+        private String mensaje;
+    }
+}
@@ -0,0 +1,39 @@
+package com.inventario.backend.dto;
+
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Respuesta de las operaciones por lote sobre usuarios: un resultado por elemento,
+// en el mismo orden de la petición (indice = posición en la lista enviada).
+@Data
+@NoArgsConstructor
+public class ResultadoLoteUsuarios {
+
+    public static final String ACTUALIZADO = "actualizado";
+    public static final String SIN_CAMBIOS = "sin_cambios";
+    public static final String NO_ENCONTRADO = "no_encontrado";
+    public static final String REGISTRADO = "registrado";
+    public static final String ERROR = "error";
+
+    private int procesados;
+
+    private int exitosos;
+
+    private List<Elemento> resultados = new ArrayList<>();
+
+    @Data
+    @NoArgsConstructor
+    @AllArgsConstructor
+    public static class Elemento {
+
+        private int indice;
+
+        private String estado;
+
+        private String mensaje;
+
+        private UsuarioPublico usuario;
+    }
+}
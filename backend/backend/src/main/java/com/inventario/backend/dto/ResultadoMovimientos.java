@@ -0,0 +1,20 @@
+package com.inventario.backend.dto;
+
+import com.inventario.backend.model.Movimiento;
+import com.inventario.backend.model.Saldo;
+import lombok.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Respuesta de POST /api/inventario/movimientos: los movimientos guardados (con id y fecha)
+// y el saldo resultante de cada referencia tocada por el lote.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoMovimientos {
+
+    private List<Movimiento> movimientos = new ArrayList<>();
+
+    private List<Saldo> saldos = new ArrayList<>();
+}
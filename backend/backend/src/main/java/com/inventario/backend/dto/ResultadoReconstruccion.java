@@ -0,0 +1,20 @@
+package com.inventario.backend.dto;
+
+import lombok.*;
+
+// Reporte de la reconstrucción de saldos desde el historial de movimientos.
+// corregidos: saldos creados o que no coincidían con la suma del historial.
+// eliminados: saldos de referencias sin movimientos.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class ResultadoReconstruccion {
+
+    private int particiones;
+
+    private long corregidos;
+
+    private long eliminados;
+
+    private long milisegundos;
+}
@@ -0,0 +1,32 @@
+package com.inventario.backend.dto;
+
+import lombok.*;
+
+import java.time.LocalDate;
+
+// Serie de movimientos por periodo, en columnas: el punto i es inicios[i], entradas[i], salidas[i]...
+// Arreglos primitivos de tamaño fijo (un periodo por posición, ceros incluidos), listos para graficar.
+// idReferencia nulo = todas las referencias.
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SerieMovimientos {
+
+    private Long idReferencia;
+
+    private String agrupacion;
+
+    private LocalDate desde;
+
+    private LocalDate hasta;
+
+    private LocalDate[] inicios;
+
+    private long[] entradas;
+
+    private long[] salidas;
+
+    private long[] ajustes;
+
+    private long[] movimientos;
+}
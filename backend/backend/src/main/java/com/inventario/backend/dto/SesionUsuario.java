@@ -0,0 +1,30 @@
+package com.inventario.backend.dto;
+
+import com.inventario.backend.model.Usuario;
+import lombok.*;
+
+// Respuesta del login: datos públicos del usuario más el token de sesión
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SesionUsuario {
+
+    private Long idUsuario;
+
+    private String nombre;
+
+    private String cedula;
+
+    private String correo;
+
+    private String rol;
+
+    private boolean activo;
+
+    private String token;
+
+    public static SesionUsuario de(Usuario usuario, String token) {
+        return new SesionUsuario(usuario.getIdUsuario(), usuario.getNombre(), usuario.getCedula(),
+                usuario.getCorreo(), usuario.getRol(), usuario.isActivo(), token);
+    }
+}
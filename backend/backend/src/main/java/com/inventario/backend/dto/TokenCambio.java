@@ -0,0 +1,38 @@
+package com.inventario.backend.dto;
+
+// Posición en la sincronización incremental (/changes, /api/outbox y /movimientos): transacción
+// que escribió la fila y su número de cambio (V11) o id de movimiento (V12). Se escribe
+// "transaccion.secuencia"; un número solo es un token anterior a V11/V12 y equivale a la transacción 0.
+public record TokenCambio(long transaccion, long secuencia) {
+
+    public static final TokenCambio INICIO = new TokenCambio(0L, 0L);
+
+    // since vacío = sincronización completa desde el principio
+    public static TokenCambio leer(String token) {
+        if (token == null || token.isBlank()) {
+            return INICIO;
+        }
+        String texto = token.trim();
+        int punto = texto.indexOf('.');
+        try {
+            long transaccion = punto < 0 ? 0L : Long.parseLong(texto.substring(0, punto));
+            long secuencia = Long.parseLong(texto.substring(punto + 1));
+            if (transaccion < 0 || secuencia < 0) {
+                throw new NumberFormatException();
+            }
+            return new TokenCambio(transaccion, secuencia);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El token de sincronización no es válido.");
+        }
+    }
+
+    // Columnas de la fila (null en una entidad que aún no se ha leído de la base de datos)
+    public static TokenCambio de(Long transaccion, Long secuencia) {
+        return new TokenCambio(transaccion == null ? 0L : transaccion, secuencia == null ? 0L : secuencia);
+    }
+
+    @Override
+    public String toString() {
+        return transaccion == 0 ? Long.toString(secuencia) : transaccion + "." + secuencia;
+    }
+}
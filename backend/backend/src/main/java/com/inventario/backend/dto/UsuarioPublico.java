@@ -0,0 +1,29 @@
+package com.inventario.backend.dto;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.inventario.backend.model.Usuario;
+
+// Datos de un usuario que salen en las respuestas (nunca la contraseña).
+// Los listados la leen como proyección: el SELECT no trae la columna del hash
+// y Hibernate no guarda copias para dirty checking.
+public record UsuarioPublico(
+        Long idUsuario,
+        String nombre,
+        String cedula,
+        String correo,
+        String rol,
+        boolean activo,
+        Long version,
+        @JsonIgnore Long secuenciaCambio,
+        @JsonIgnore Long transaccionCambio) {
+
+    public static UsuarioPublico de(Usuario usuario) {
+        return new UsuarioPublico(usuario.getIdUsuario(), usuario.getNombre(), usuario.getCedula(),
+                usuario.getCorreo(), usuario.getRol(), usuario.isActivo(), usuario.getVersion(),
+                usuario.getSecuenciaCambio(), usuario.getTransaccionCambio());
+    }
+
+    public TokenCambio tokenCambio() {
+        return TokenCambio.de(transaccionCambio, secuenciaCambio);
+    }
+}
@@ -0,0 +1,33 @@
+package com.inventario.backend.exception;
+
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Error de validación con todos los campos inválidos encontrados en una sola pasada.
+// Extiende IllegalArgumentException: responde 400 como el resto de errores de datos.
+// El cuerpo lleva el mensaje (los de cada campo unidos) y el mapa campo -> mensaje (ErroresValidacion).
+public class DatosInvalidosException extends IllegalArgumentException {
+
+    private final Map<String, String> errores;
+
+    public DatosInvalidosException(Map<String, String> errores) {
+        this(String.join(" ", errores.values()), errores);
+    }
+
+    private DatosInvalidosException(String mensaje, Map<String, String> errores) {
+        super(mensaje);
+        this.errores = Collections.unmodifiableMap(errores);
+    }
+
+    //  Mismo error dentro de un lote: "Movimiento 3: ..." y campos "[2].cantidad"
+    public DatosInvalidosException enElemento(int indice, String etiqueta) {
+        Map<String, String> conIndice = new LinkedHashMap<>();
+        errores.forEach((campo, mensaje) -> conIndice.put("[" + indice + "]." + campo, mensaje));
+        return new DatosInvalidosException(etiqueta + " " + (indice + 1) + ": " + getMessage(), conIndice);
+    }
+
+    public Map<String, String> getErrores() {
+        return errores;
+    }
+}
@@ -1,19 +1,72 @@
 package com.inventario.backend.exception;
 
+import com.inventario.backend.dto.ErroresValidacion;
+import org.springframework.dao.OptimisticLockingFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.ControllerAdvice;
 import org.springframework.web.bind.annotation.ExceptionHandler;
 
+import java.util.concurrent.RejectedExecutionException;
+
 @ControllerAdvice
 public class GlobalExceptionHandler {
 
+    // Datos inválidos: mensaje y errores por campo
+    @ExceptionHandler(DatosInvalidosException.class)
+    public ResponseEntity<ErroresValidacion> handleDatosInvalidos(DatosInvalidosException ex) {
+        return ResponseEntity.badRequest().body(ErroresValidacion.de(ex));
+    }
+
+    // Cuerpo rechazado por @Valid: mismo formato que DatosInvalidosException
+    @ExceptionHandler(MethodArgumentNotValidException.class)
+    public ResponseEntity<ErroresValidacion> handleCuerpoInvalido(MethodArgumentNotValidException ex) {
+        return ResponseEntity.badRequest().body(ErroresValidacion.de(ex.getBindingResult()));
+    }
+
     // Manejar errores de validación
     @ExceptionHandler(IllegalArgumentException.class)
     public ResponseEntity<String> handleIllegalArgument(IllegalArgumentException ex) {
         return new ResponseEntity<>(ex.getMessage(), HttpStatus.BAD_REQUEST);
     }
 
+    // Código, nombre u otro valor único ya registrado
+    @ExceptionHandler(RegistroDuplicadoException.class)
+    public ResponseEntity<String> handleDuplicado(RegistroDuplicadoException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    // Salida o ajuste mayor que las existencias
+    @ExceptionHandler(StockInsuficienteException.class)
+    public ResponseEntity<String> handleStockInsuficiente(StockInsuficienteException ex) {
+        return new ResponseEntity<>(ex.getMessage(), HttpStatus.CONFLICT);
+    }
+
+    // If-Match con una versión que ya no es la actual, o escritura concurrente detectada por @Version
+    @ExceptionHandler({VersionObsoletaException.class, OptimisticLockingFailureException.class})
+    public ResponseEntity<String> handleVersionObsoleta(RuntimeException ex) {
+        return new ResponseEntity<>("El registro fue modificado por otro usuario. Vuelva a cargarlo.",
+                HttpStatus.PRECONDITION_FAILED);
+    }
+
+    // Límite de frecuencia del cliente superado
+    @ExceptionHandler(LimiteExcedidoException.class)
+    public ResponseEntity<String> handleLimiteExcedido(LimiteExcedidoException ex) {
+        return ResponseEntity.status(HttpStatus.TOO_MANY_REQUESTS)
+                .header(HttpHeaders.RETRY_AFTER, Long.toString(ex.getSegundos()))
+                .body(ex.getMessage());
+    }
+
+    // Pool de contraseñas (BCrypt) lleno
+    @ExceptionHandler(RejectedExecutionException.class)
+    public ResponseEntity<String> handleRechazada(RejectedExecutionException ex) {
+        return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE)
+                .header(HttpHeaders.RETRY_AFTER, "1")
+                .body("El servidor está ocupado, intenta de nuevo en unos segundos.");
+    }
+
     // Manejar cualquier otro error
     @ExceptionHandler(Exception.class)
     public ResponseEntity<String> handleGeneralError(Exception ex) {
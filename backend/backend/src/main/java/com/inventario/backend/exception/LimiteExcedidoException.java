@@ -0,0 +1,16 @@
+package com.inventario.backend.exception;
+
+// El cliente superó su límite de frecuencia: se responde 429 con Retry-After
+public class LimiteExcedidoException extends RuntimeException {
+
+    private final long segundos;
+
+    public LimiteExcedidoException(long segundos) {
+        super("Demasiados intentos. Intenta de nuevo en " + segundos + " segundos.");
+        this.segundos = segundos;
+    }
+
+    public long getSegundos() {
+        return segundos;
+    }
+}
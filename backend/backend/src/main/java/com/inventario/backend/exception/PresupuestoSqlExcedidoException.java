@@ -0,0 +1,9 @@
+package com.inventario.backend.exception;
+
+// Un endpoint ejecutó más sentencias SQL que su @PresupuestoSql (modo fallar)
+public class PresupuestoSqlExcedidoException extends RuntimeException {
+
+    public PresupuestoSqlExcedidoException(String endpoint, int presupuesto, int sentencias) {
+        super(endpoint + " ejecutó " + sentencias + " sentencias SQL; su presupuesto es " + presupuesto + ".");
+    }
+}
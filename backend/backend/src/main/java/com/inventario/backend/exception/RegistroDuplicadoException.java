@@ -0,0 +1,17 @@
+package com.inventario.backend.exception;
+
+// Violación de una restricción única (por ejemplo código o nombre de referencia).
+// Los controladores la responden con 409 Conflict en lugar de un 400 genérico.
+public class RegistroDuplicadoException extends RuntimeException {
+
+    private final String campo;
+
+    public RegistroDuplicadoException(String campo, String mensaje) {
+        super(mensaje);
+        this.campo = campo;
+    }
+
+    public String getCampo() {
+        return campo;
+    }
+}
@@ -0,0 +1,21 @@
+package com.inventario.backend.exception;
+
+import java.util.List;
+
+// Una salida o un ajuste dejaría negativo el saldo de alguna referencia.
+// Se responde 409 Conflict: el lote es válido, pero no con las existencias actuales.
+public class StockInsuficienteException extends RuntimeException {
+
+    private final List<Long> referencias;
+
+    public StockInsuficienteException(List<Long> referencias) {
+        super(referencias.isEmpty()
+                ? "Stock insuficiente para registrar los movimientos."
+                : "Stock insuficiente en las referencias " + referencias + ".");
+        this.referencias = List.copyOf(referencias);
+    }
+
+    public List<Long> getReferencias() {
+        return referencias;
+    }
+}
@@ -0,0 +1,10 @@
+package com.inventario.backend.exception;
+
+// La versión enviada en If-Match ya no es la guardada: otro cliente modificó el registro.
+// Los controladores la responden con 412 Precondition Failed.
+public class VersionObsoletaException extends RuntimeException {
+
+    public VersionObsoletaException(String mensaje) {
+        super(mensaje);
+    }
+}
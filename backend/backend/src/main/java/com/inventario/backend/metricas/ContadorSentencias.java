@@ -0,0 +1,78 @@
+package com.inventario.backend.metricas;
+
+import com.inventario.backend.exception.PresupuestoSqlExcedidoException;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+// Número de sentencias SQL preparadas durante una petición HTTP.
+// Vive en el hilo de la petición y acompaña al trabajo que se pasa a otros executors
+// (propagar), así las peticiones asíncronas también quedan contadas.
+public final class ContadorSentencias {
+
+    private static final ThreadLocal<ContadorSentencias> ACTUAL = new ThreadLocal<>();
+
+    private final AtomicInteger sentencias = new AtomicInteger();
+
+    // Los fija PresupuestoSentencias al conocerse el endpoint (antes de llamar al controlador)
+    private volatile String endpoint;
+    private volatile int presupuesto = PresupuestoSql.SIN_LIMITE;
+    private volatile boolean fallar;
+
+    public int getSentencias() {
+        return sentencias.get();
+    }
+
+    public int getPresupuesto() {
+        return presupuesto;
+    }
+
+    public boolean excedido() {
+        return sentencias.get() > presupuesto;
+    }
+
+    void limitar(String endpoint, int presupuesto, boolean fallar) {
+        this.endpoint = endpoint;
+        this.presupuesto = presupuesto;
+        this.fallar = fallar;
+    }
+
+    // Asocia el contador al hilo actual y devuelve el que había antes
+    static ContadorSentencias asociar(ContadorSentencias contador) {
+        ContadorSentencias anterior = ACTUAL.get();
+        if (contador == null) {
+            ACTUAL.remove();
+        } else {
+            ACTUAL.set(contador);
+        }
+        return anterior;
+    }
+
+    // Llamado por DataSourceContado en cada sentencia; fuera de una petición no hace nada.
+    // En modo fallar la sentencia que supera el presupuesto no llega a prepararse.
+    static void registrar() {
+        ContadorSentencias contador = ACTUAL.get();
+        if (contador == null) {
+            return;
+        }
+        int total = contador.sentencias.incrementAndGet();
+        if (total > contador.presupuesto && contador.fallar) {
+            throw new PresupuestoSqlExcedidoException(contador.endpoint, contador.presupuesto, total);
+        }
+    }
+
+    // Envuelve una tarea para que cuente en la petición que la envió
+    public static Runnable propagar(Runnable tarea) {
+        ContadorSentencias contador = ACTUAL.get();
+        if (contador == null) {
+            return tarea;
+        }
+        return () -> {
+            ContadorSentencias anterior = asociar(contador);
+            try {
+                tarea.run();
+            } finally {
+                asociar(anterior);
+            }
+        };
+    }
+}
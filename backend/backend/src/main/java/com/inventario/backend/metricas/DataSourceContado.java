@@ -0,0 +1,52 @@
+package com.inventario.backend.metricas;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+// DataSource que cuenta cada sentencia preparada (JPA y JdbcTemplate por igual)
+// en el ContadorSentencias de la petición en curso.
+final class DataSourceContado extends DelegatingDataSource {
+
+    DataSourceContado(DataSource destino) {
+        super(destino);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return contar(super.getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String usuario, String clave) throws SQLException {
+        return contar(super.getConnection(usuario, clave));
+    }
+
+    private static Connection contar(Connection conexion) {
+        return (Connection) Proxy.newProxyInstance(
+                DataSourceContado.class.getClassLoader(),
+                new Class<?>[]{Connection.class},
+                (proxy, metodo, argumentos) -> {
+                    switch (metodo.getName()) {
+                        case "prepareStatement", "prepareCall", "createStatement" -> ContadorSentencias.registrar();
+                        case "equals" -> {
+                            return proxy == argumentos[0];
+                        }
+                        case "hashCode" -> {
+                            return System.identityHashCode(proxy);
+                        }
+                        default -> {
+                        }
+                    }
+                    try {
+                        return metodo.invoke(conexion, argumentos);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+}
@@ -0,0 +1,85 @@
+package com.inventario.backend.metricas;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.io.IOException;
+
+// Registra cuántas sentencias SQL ejecutó cada petición (inventario.sql.sentencias{metodo,uri}).
+// En las peticiones asíncronas (login, registro) el valor se registra al terminar la respuesta.
+// Las que superan su presupuesto (@PresupuestoSql) se anotan en el log y en
+// inventario.sql.presupuesto.excedido{metodo,uri}.
+public class FiltroMetricasPeticion extends OncePerRequestFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(FiltroMetricasPeticion.class);
+
+    private static final String ATRIBUTO_CONTADOR = FiltroMetricasPeticion.class.getName() + ".contador";
+
+    private final MeterRegistry registro;
+
+    public FiltroMetricasPeticion(MeterRegistry registro) {
+        this.registro = registro;
+    }
+
+    static ContadorSentencias contador(HttpServletRequest request) {
+        return (ContadorSentencias) request.getAttribute(ATRIBUTO_CONTADOR);
+    }
+
+    @Override
+    protected boolean shouldNotFilterAsyncDispatch() {
+        return false;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        ContadorSentencias contador = contador(request);
+        if (contador == null) {
+            contador = new ContadorSentencias();
+            request.setAttribute(ATRIBUTO_CONTADOR, contador);
+        }
+
+        ContadorSentencias anterior = ContadorSentencias.asociar(contador);
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            ContadorSentencias.asociar(anterior);
+            if (!request.isAsyncStarted()) {
+                registrar(request, contador);
+            }
+        }
+    }
+
+    private void registrar(HttpServletRequest request, ContadorSentencias contador) {
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        String uri = patron == null ? "UNKNOWN" : patron.toString();
+        DistributionSummary.builder("inventario.sql.sentencias")
+                .description("Sentencias SQL por petición HTTP")
+                .tag("metodo", request.getMethod())
+                .tag("uri", uri)
+                .serviceLevelObjectives(1, 2, 3, 5, 10, 20, 50)
+                .register(registro)
+                .record(contador.getSentencias());
+
+        if (contador.excedido()) {
+            log.warn("{} {} ejecutó {} sentencias SQL; su presupuesto es {}",
+                    request.getMethod(), uri, contador.getSentencias(), contador.getPresupuesto());
+            Counter.builder("inventario.sql.presupuesto.excedido")
+                    .description("Peticiones que superaron su presupuesto de sentencias SQL")
+                    .tag("metodo", request.getMethod())
+                    .tag("uri", uri)
+                    .register(registro)
+                    .increment();
+        }
+    }
+}
@@ -0,0 +1,71 @@
+package com.inventario.backend.metricas;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.DispatcherType;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+import org.springframework.core.task.TaskDecorator;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import javax.sql.DataSource;
+
+// Conteo y presupuesto de sentencias SQL por petición. Las demás métricas (latencia por endpoint,
+// pool Hikari, cachés) las publica Actuator en /actuator/prometheus.
+@Configuration
+public class MetricasConfig {
+
+    // Envuelve el DataSource (Hikari) para contar las sentencias de JPA y JdbcTemplate
+    @Bean
+    public static BeanPostProcessor contarSentenciasSql() {
+        return new BeanPostProcessor() {
+            @Override
+            public Object postProcessAfterInitialization(Object bean, String nombre) {
+                if (bean instanceof DataSource dataSource && !(bean instanceof DataSourceContado)) {
+                    return new DataSourceContado(dataSource);
+                }
+                return bean;
+            }
+        };
+    }
+
+    @Bean
+    public FilterRegistrationBean<FiltroMetricasPeticion> filtroMetricasPeticion(MeterRegistry registro) {
+        FilterRegistrationBean<FiltroMetricasPeticion> registroFiltro =
+                new FilterRegistrationBean<>(new FiltroMetricasPeticion(registro));
+        registroFiltro.setDispatcherTypes(DispatcherType.REQUEST, DispatcherType.ASYNC);
+        registroFiltro.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registroFiltro;
+    }
+
+    // registrar: solo advierte al superar el presupuesto; fallar: la sentencia extra lanza
+    // PresupuestoSqlExcedidoException (perfil test, para detectar regresiones N+1)
+    @Bean
+    public WebMvcConfigurer presupuestoSentenciasSql(
+            @Value("${inventario.sql.presupuesto:5}") int presupuesto,
+            @Value("${inventario.sql.presupuesto-modo:registrar}") String modo) {
+        boolean fallar = switch (modo.trim().toLowerCase()) {
+            case "registrar" -> false;
+            case "fallar" -> true;
+            default -> throw new IllegalArgumentException(
+                    "inventario.sql.presupuesto-modo debe ser registrar o fallar: " + modo);
+        };
+        PresupuestoSentencias interceptor = new PresupuestoSentencias(presupuesto, fallar);
+        return new WebMvcConfigurer() {
+            @Override
+            public void addInterceptors(InterceptorRegistry registry) {
+                registry.addInterceptor(interceptor);
+            }
+        };
+    }
+
+    // applicationTaskExecutor: el guardado posterior al hash cuenta en la petición que lo originó
+    @Bean
+    public TaskDecorator propagarContadorSentencias() {
+        return ContadorSentencias::propagar;
+    }
+}
@@ -0,0 +1,38 @@
+package com.inventario.backend.metricas;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.HandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+// Asigna a la petición el presupuesto de sentencias SQL de su endpoint:
+// @PresupuestoSql del método (o del controlador) o, si no tiene, el valor general.
+public class PresupuestoSentencias implements HandlerInterceptor {
+
+    private final int presupuestoGeneral;
+    private final boolean fallar;
+
+    public PresupuestoSentencias(int presupuestoGeneral, boolean fallar) {
+        this.presupuestoGeneral = presupuestoGeneral;
+        this.fallar = fallar;
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        ContadorSentencias contador = FiltroMetricasPeticion.contador(request);
+        if (contador == null || !(handler instanceof HandlerMethod metodo)) {
+            return true;
+        }
+
+        PresupuestoSql anotacion = metodo.getMethodAnnotation(PresupuestoSql.class);
+        if (anotacion == null) {
+            anotacion = metodo.getBeanType().getAnnotation(PresupuestoSql.class);
+        }
+        int presupuesto = anotacion == null ? presupuestoGeneral : anotacion.value();
+
+        Object patron = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        contador.limitar(request.getMethod() + " " + patron, presupuesto, fallar);
+        return true;
+    }
+}
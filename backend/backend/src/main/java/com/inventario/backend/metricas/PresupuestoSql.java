@@ -0,0 +1,21 @@
+package com.inventario.backend.metricas;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Máximo de sentencias SQL que puede ejecutar un endpoint en una petición.
+// Sin la anotación rige inventario.sql.presupuesto. Si se supera se registra una
+// advertencia o, con inventario.sql.presupuesto-modo=fallar, la petición falla.
+@Documented
+@Target({ ElementType.METHOD, ElementType.TYPE })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface PresupuestoSql {
+
+    // Endpoints cuyo número de sentencias crece con la entrada (importación por lotes)
+    int SIN_LIMITE = Integer.MAX_VALUE;
+
+    int value();
+}
@@ -0,0 +1,57 @@
+package com.inventario.backend.model;
+
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.fasterxml.jackson.annotation.JsonProperty;
+import com.inventario.backend.dto.TokenCambio;
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+//  Movimiento de existencias. La tabla es de solo inserción: se escribe con JDBC por lotes
+//  (InventarioService) y JPA solo la lee.
+@Entity
+@Table(name = "movimientos")
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Movimiento {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    private Long idMovimiento;
+
+    @Column(name = "id_referencia", nullable = false)
+    private Long idReferencia;
+
+    //  Quien registró el movimiento (se toma del token, no del cuerpo)
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(name = "id_usuario", nullable = false)
+    private Long idUsuario;
+
+    @Enumerated(EnumType.STRING)
+    @Column(nullable = false, length = 10)
+    private TipoMovimiento tipo;
+
+    //  Con signo: positiva suma al saldo, negativa resta
+    @Column(nullable = false)
+    private Long cantidad;
+
+    private String observacion;
+
+    @JsonProperty(access = JsonProperty.Access.READ_ONLY)
+    @Column(nullable = false)
+    private Instant fecha;
+
+    //  Transacción que insertó el movimiento; ordena el historial junto con idMovimiento (V12)
+    @JsonIgnore
+    @Column(insertable = false, updatable = false)
+    private Long transaccion;
+
+    public TokenCambio tokenCambio() {
+        return TokenCambio.de(transaccion, idMovimiento);
+    }
+}
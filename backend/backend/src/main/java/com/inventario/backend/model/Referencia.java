@@ -1,6 +1,10 @@
 package com.inventario.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
+import com.inventario.backend.utils.ValidadorDatos;
+import com.inventario.backend.validacion.CodigoRF;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 
 @Entity
@@ -14,12 +18,29 @@ public class Referencia {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long idReferencia;
 
+    @CodigoRF
     @Column(nullable = false, unique = true)
     private String codigo;
 
+    @NotBlank(message = ValidadorDatos.NOMBRE_REFERENCIA_VACIO)
     @Column(nullable = false, unique = true)
     private String nombre;
 
     @Column(nullable = false)
     private boolean activo = true;
+
+    //  Se incrementa en cada escritura; los controladores la exponen como ETag
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    //  Número de cambio global asignado por la base de datos (token de /changes)
+    @JsonIgnore
+    @Column(name = "secuencia_cambio", insertable = false, updatable = false)
+    private Long secuenciaCambio;
+
+    //  Transacción que hizo el último cambio; ordena /changes junto con secuenciaCambio (V11)
+    @JsonIgnore
+    @Column(name = "transaccion_cambio", insertable = false, updatable = false)
+    private Long transaccionCambio;
 }
@@ -0,0 +1,32 @@
+package com.inventario.backend.model;
+
+import jakarta.persistence.*;
+import lombok.*;
+import org.hibernate.annotations.Immutable;
+
+import java.time.Instant;
+
+//  Existencias actuales de una referencia: suma de sus movimientos, mantenida al insertarlos
+//  (InventarioService). Leer el stock es buscar una fila por clave primaria.
+@Entity
+@Table(name = "saldos")
+@Immutable
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class Saldo {
+
+    @Id
+    @Column(name = "id_referencia")
+    private Long idReferencia;
+
+    @Column(nullable = false)
+    private Long cantidad;
+
+    //  Último movimiento incluido en la cantidad
+    @Column(name = "id_ultimo_movimiento", nullable = false)
+    private Long idUltimoMovimiento;
+
+    @Column(nullable = false)
+    private Instant actualizado;
+}
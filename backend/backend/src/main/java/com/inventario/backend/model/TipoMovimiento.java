@@ -0,0 +1,9 @@
+package com.inventario.backend.model;
+
+// ENTRADA y SALIDA llevan cantidad positiva en la petición (la salida se guarda restando);
+// AJUSTE lleva la diferencia con signo (conteo físico menos saldo)
+public enum TipoMovimiento {
+    ENTRADA,
+    SALIDA,
+    AJUSTE
+}
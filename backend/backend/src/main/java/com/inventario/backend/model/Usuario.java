@@ -1,7 +1,13 @@
 package com.inventario.backend.model;
 
+import com.fasterxml.jackson.annotation.JsonIgnore;
 import com.fasterxml.jackson.annotation.JsonProperty;
+import com.inventario.backend.utils.ValidadorDatos;
+import com.inventario.backend.validacion.Cedula;
+import com.inventario.backend.validacion.Correo;
+import com.inventario.backend.validacion.Rol;
 import jakarta.persistence.*;
+import jakarta.validation.constraints.NotBlank;
 import lombok.*;
 
 @Entity
@@ -15,12 +21,15 @@ public class Usuario {
     @GeneratedValue(strategy = GenerationType.IDENTITY)
     private Long idUsuario;
 
+    @NotBlank(message = ValidadorDatos.NOMBRE_VACIO)
     @Column(nullable = false)
     private String nombre;
 
+    @Cedula
     @Column(nullable = false, unique = true)
     private String cedula;
 
+    @Correo
     @Column(nullable = false, unique = true)
     private String correo;
 
@@ -29,9 +38,30 @@ public class Usuario {
     @Column(nullable = false)
     private String contrasena;
 
+    @Rol
     @Column(nullable = false)
     private String rol; // Ej: "ADMIN", "TECNICO"
 
     @Column(nullable = false)
     private boolean activo = true;
+
+    //  Se incrementa en cada escritura; los controladores la exponen como ETag
+    @Version
+    @Column(nullable = false)
+    private Long version;
+
+    //  Número de cambio global asignado por la base de datos (token de /changes)
+    @JsonIgnore
+    @Column(name = "secuencia_cambio", insertable = false, updatable = false)
+    private Long secuenciaCambio;
+
+    //  Transacción que hizo el último cambio; ordena /changes junto con secuenciaCambio (V11)
+    @JsonIgnore
+    @Column(name = "transaccion_cambio", insertable = false, updatable = false)
+    private Long transaccionCambio;
+
+    //  Va en cada token; al incrementarse, los tokens emitidos antes dejan de valer
+    @JsonIgnore
+    @Column(name = "version_token", nullable = false)
+    private int versionToken;
 }
@@ -0,0 +1,8 @@
+package com.inventario.backend.repository;
+
+import com.inventario.backend.model.Movimiento;
+import org.springframework.data.jpa.repository.JpaRepository;
+
+//  El historial se pagina con JDBC (InventarioService): necesita el horizonte de transacciones de V12
+public interface MovimientoRepository extends JpaRepository<Movimiento, Long> {
+}
@@ -1,22 +1,25 @@
 package com.inventario.backend.repository;
 
+import com.inventario.backend.dto.ReferenciaPublica;
 import com.inventario.backend.model.Referencia;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.JpaSpecificationExecutor;
 import java.util.Optional;
 import java.util.List;
 
-public interface ReferenciaRepository extends JpaRepository<Referencia, Long> {
-
-    Optional<Referencia> findByCodigo(String codigo);
+public interface ReferenciaRepository extends JpaRepository<Referencia, Long>,
+        JpaSpecificationExecutor<Referencia> {
 
     Optional<Referencia> findByNombre(String nombre);
 
-    //  Referencias activas
-    List<Referencia> findByActivoTrue();
+    //  Listado completo: solo las columnas públicas, sin entidades administradas
+    List<ReferenciaPublica> findAllProjectedBy();
+
+    //  Lecturas cacheadas: proyecciones inmutables, sin entidades en el contexto de persistencia
+    Optional<ReferenciaPublica> findProjectedByIdReferencia(Long idReferencia);
 
-    //  Referencias inactivas
-    List<Referencia> findByActivoFalse();
+    Optional<ReferenciaPublica> findProjectedByCodigo(String codigo);
 
     //  Buscar por estado (true = activas, false = inactivas)
-    List<Referencia> findByActivo(boolean activo);
+    List<ReferenciaPublica> findProjectedByActivo(boolean activo);
 }
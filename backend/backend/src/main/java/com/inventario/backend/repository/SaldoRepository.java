@@ -0,0 +1,12 @@
+package com.inventario.backend.repository;
+
+import com.inventario.backend.model.Saldo;
+import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
+
+public interface SaldoRepository extends JpaRepository<Saldo, Long> {
+
+    //  Saldos de varias referencias en una sola consulta por clave primaria
+    List<Saldo> findByIdReferenciaIn(Collection<Long> idsReferencia);
+}
@@ -1,10 +1,21 @@
 package com.inventario.backend.repository;
 
+import com.inventario.backend.dto.UsuarioPublico;
 import com.inventario.backend.model.Usuario;
 import org.springframework.data.jpa.repository.JpaRepository;
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UsuarioRepository extends JpaRepository<Usuario, Long> {
     Optional<Usuario> findByCedula(String cedula);
     Optional<Usuario> findByCorreo(String correo);
+
+    //  Proyecciones para las respuestas: solo las columnas públicas (sin el hash BCrypt)
+    List<UsuarioPublico> findAllProjectedBy();
+
+    Optional<UsuarioPublico> findProjectedByIdUsuario(Long idUsuario);
+
+    //  Cédulas o correos ya registrados (registro individual y por lotes, una sola consulta)
+    List<UsuarioPublico> findProjectedByCedulaInOrCorreoIn(Collection<String> cedulas, Collection<String> correos);
 }
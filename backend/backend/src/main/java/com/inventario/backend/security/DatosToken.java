@@ -0,0 +1,9 @@
+package com.inventario.backend.security;
+
+// Claims ya verificados de un token de sesión (versionToken: la del usuario al emitirlo)
+public record DatosToken(Long idUsuario, String cedula, String rol, int versionToken, long expiraEn) {
+
+    public boolean expirado(long ahoraEnSegundos) {
+        return ahoraEnSegundos >= expiraEn;
+    }
+}
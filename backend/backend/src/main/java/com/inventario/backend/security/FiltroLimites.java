@@ -0,0 +1,127 @@
+package com.inventario.backend.security;
+
+import jakarta.servlet.AsyncEvent;
+import jakarta.servlet.AsyncListener;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+// Aplica los límites de LimitadorPeticiones antes de autenticar (rechazar cuesta casi nada):
+// - login, registro y demás escrituras: frecuencia por IP -> 429 con Retry-After
+// - todo el API: peticiones simultáneas -> 503 con Retry-After
+// Las conexiones SSE (/eventos) duran minutos y tienen su propio máximo; no cuentan como simultáneas.
+public class FiltroLimites extends OncePerRequestFilter {
+
+    private final LimitadorPeticiones limitador;
+
+    public FiltroLimites(LimitadorPeticiones limitador) {
+        this.limitador = limitador;
+    }
+
+    @Override
+    protected boolean shouldNotFilter(HttpServletRequest request) {
+        String ruta = request.getServletPath();
+        return !ruta.startsWith("/api/") && !ruta.startsWith("/auth/");
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        long espera = esperaFrecuencia(request);
+        if (espera > 0) {
+            rechazar(response, HttpStatus.TOO_MANY_REQUESTS, espera,
+                    "Demasiadas solicitudes. Intenta de nuevo en " + espera + " segundos.");
+            return;
+        }
+
+        if (request.getServletPath().endsWith("/eventos")) {
+            filterChain.doFilter(request, response);
+            return;
+        }
+
+        if (!limitador.entrar()) {
+            rechazar(response, HttpStatus.SERVICE_UNAVAILABLE, 1,
+                    "El servidor está ocupado, intenta de nuevo en unos segundos.");
+            return;
+        }
+
+        try {
+            filterChain.doFilter(request, response);
+        } finally {
+            if (request.isAsyncStarted()) {
+                // Login, registro y exportaciones terminan en otro hilo: se libera al completar
+                request.getAsyncContext().addListener(new Liberar());
+            } else {
+                limitador.salir();
+            }
+        }
+    }
+
+    private long esperaFrecuencia(HttpServletRequest request) {
+        HttpMethod metodo = HttpMethod.valueOf(request.getMethod());
+        if (metodo == HttpMethod.GET || metodo == HttpMethod.HEAD || metodo == HttpMethod.OPTIONS) {
+            return 0;
+        }
+
+        String ruta = request.getServletPath();
+        String ip = request.getRemoteAddr();
+        if (ruta.equals("/auth/login") || ruta.equals("/api/usuarios/login")) {
+            return limitador.esperaLogin(ip);
+        }
+        if (ruta.endsWith("/registrar")) {
+            return limitador.esperaRegistro(ip);
+        }
+        return limitador.esperaEscritura(ip);
+    }
+
+    private static void rechazar(HttpServletResponse response, HttpStatus estado, long segundos,
+                                 String mensaje) throws IOException {
+        response.setStatus(estado.value());
+        response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(segundos));
+        response.setContentType(MediaType.TEXT_PLAIN_VALUE);
+        response.setCharacterEncoding(StandardCharsets.UTF_8.name());
+        response.getWriter().write(mensaje);
+    }
+
+    private final class Liberar implements AsyncListener {
+
+        private final AtomicBoolean liberado = new AtomicBoolean();
+
+        @Override
+        public void onComplete(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onTimeout(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onError(AsyncEvent event) {
+            liberar();
+        }
+
+        @Override
+        public void onStartAsync(AsyncEvent event) {
+            event.getAsyncContext().addListener(this);
+        }
+
+        private void liberar() {
+            if (liberado.compareAndSet(false, true)) {
+                limitador.salir();
+            }
+        }
+    }
+}
@@ -0,0 +1,47 @@
+package com.inventario.backend.security;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.util.List;
+
+// Lee "Authorization: Bearer <token>" y, si el token es válido, deja al usuario
+// autenticado con su rol (ROLE_ADMIN / ROLE_TECNICO). No consulta la base de datos.
+public class FiltroToken extends OncePerRequestFilter {
+
+    private static final String PREFIJO = "Bearer ";
+
+    private final TokenService tokenService;
+
+    public FiltroToken(TokenService tokenService) {
+        this.tokenService = tokenService;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response,
+                                    FilterChain filterChain) throws ServletException, IOException {
+
+        String cabecera = request.getHeader(HttpHeaders.AUTHORIZATION);
+        if (cabecera != null && cabecera.startsWith(PREFIJO)) {
+            tokenService.verificar(cabecera.substring(PREFIJO.length()).trim()).ifPresent(datos -> {
+                List<SimpleGrantedAuthority> roles = datos.rol() == null
+                        ? List.of()
+                        : List.of(new SimpleGrantedAuthority("ROLE_" + datos.rol()));
+                UsernamePasswordAuthenticationToken autenticacion =
+                        new UsernamePasswordAuthenticationToken(String.valueOf(datos.idUsuario()), null, roles);
+                autenticacion.setDetails(datos);
+                SecurityContextHolder.getContext().setAuthentication(autenticacion);
+            });
+        }
+
+        filterChain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,162 @@
+package com.inventario.backend.security;
+
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Límites de carga en proceso:
+// - Frecuencia por cliente (IP o cédula): token bucket en forma GCRA, un solo AtomicLong por
+//   clave actualizado con CAS. Las cubetas viven en Caffeine (segmentado, sin bloqueo global)
+//   con tamaño máximo y expiración, así la memoria queda acotada aunque lleguen muchas IPs.
+// - Peticiones simultáneas: por encima del máximo se rechaza (503) en lugar de encolar,
+//   antes de que la latencia de todos se dispare.
+@Component
+public class LimitadorPeticiones {
+
+    // Capacidad = ráfaga permitida; porMinuto = ritmo sostenido
+    public record Regla(String nombre, int capacidad, long intervaloNanos) {
+
+        static Regla de(String nombre, int capacidad, int porMinuto) {
+            if (capacidad <= 0 || porMinuto <= 0) {
+                throw new IllegalArgumentException("inventario.limites." + nombre + " debe ser mayor que 0.");
+            }
+            return new Regla(nombre, capacidad, TimeUnit.MINUTES.toNanos(1) / porMinuto);
+        }
+    }
+
+    private final Regla login;
+    private final Regla loginCedula;
+    private final Regla registro;
+    private final Regla escritura;
+    private final int maximoSimultaneas;
+
+    private final Cache<String, Cubeta> cubetas;
+    private final AtomicInteger enCurso = new AtomicInteger();
+    private final Counter rechazadasFrecuencia;
+    private final Counter rechazadasSaturacion;
+
+    // TAT (theoretical arrival time): instante en que la cubeta vuelve a estar vacía.
+    // Cada petición lo adelanta un intervalo; se rechaza si quedaría más de "capacidad" intervalos por delante.
+    private static final class Cubeta {
+        private final AtomicLong llegadaTeorica;
+
+        private Cubeta(long ahora) {
+            this.llegadaTeorica = new AtomicLong(ahora);
+        }
+
+        // 0 si se permite; si no, nanosegundos que faltan para que se permita
+        private long consumir(Regla regla, long ahora) {
+            long limite = regla.intervaloNanos() * regla.capacidad();
+            while (true) {
+                long actual = llegadaTeorica.get();
+                long siguiente = Math.max(actual, ahora) + regla.intervaloNanos();
+                long espera = siguiente - limite - ahora;
+                if (espera > 0) {
+                    return espera;
+                }
+                if (llegadaTeorica.compareAndSet(actual, siguiente)) {
+                    return 0;
+                }
+            }
+        }
+    }
+
+    public LimitadorPeticiones(@Value("${inventario.limites.login.capacidad:10}") int loginCapacidad,
+                               @Value("${inventario.limites.login.por-minuto:10}") int loginPorMinuto,
+                               @Value("${inventario.limites.login-cedula.capacidad:5}") int cedulaCapacidad,
+                               @Value("${inventario.limites.login-cedula.por-minuto:5}") int cedulaPorMinuto,
+                               @Value("${inventario.limites.registro.capacidad:20}") int registroCapacidad,
+                               @Value("${inventario.limites.registro.por-minuto:30}") int registroPorMinuto,
+                               @Value("${inventario.limites.escritura.capacidad:60}") int escrituraCapacidad,
+                               @Value("${inventario.limites.escritura.por-minuto:120}") int escrituraPorMinuto,
+                               @Value("${inventario.limites.simultaneas:256}") int maximoSimultaneas,
+                               @Value("${inventario.limites.claves:100000}") long maximoClaves,
+                               MeterRegistry registro) {
+        this.login = Regla.de("login", loginCapacidad, loginPorMinuto);
+        this.loginCedula = Regla.de("login-cedula", cedulaCapacidad, cedulaPorMinuto);
+        this.registro = Regla.de("registro", registroCapacidad, registroPorMinuto);
+        this.escritura = Regla.de("escritura", escrituraCapacidad, escrituraPorMinuto);
+        this.maximoSimultaneas = maximoSimultaneas;
+
+        // Una cubeta sin uso durante 10 minutos ya se habría vaciado: se puede descartar
+        this.cubetas = Caffeine.newBuilder()
+                .maximumSize(maximoClaves)
+                .expireAfterAccess(Duration.ofMinutes(10))
+                .build();
+
+        Gauge.builder("inventario.limites.en_curso", enCurso, AtomicInteger::get)
+                .description("Peticiones del API en curso")
+                .register(registro);
+        Gauge.builder("inventario.limites.claves", cubetas, Cache::estimatedSize)
+                .description("Clientes con cubeta de frecuencia activa")
+                .register(registro);
+        this.rechazadasFrecuencia = Counter.builder("inventario.limites.rechazadas")
+                .description("Peticiones rechazadas por los límites de carga")
+                .tag("motivo", "frecuencia")
+                .register(registro);
+        this.rechazadasSaturacion = Counter.builder("inventario.limites.rechazadas")
+                .description("Peticiones rechazadas por los límites de carga")
+                .tag("motivo", "saturacion")
+                .register(registro);
+    }
+
+    // ----------------------------------------------------
+    // FRECUENCIA POR CLIENTE (0 = permitido; si no, segundos para reintentar)
+    // ----------------------------------------------------
+    public long esperaLogin(String ip) {
+        return consumir(login, ip);
+    }
+
+    public long esperaLoginCedula(String cedula) {
+        return consumir(loginCedula, cedula);
+    }
+
+    public long esperaRegistro(String ip) {
+        return consumir(registro, ip);
+    }
+
+    public long esperaEscritura(String ip) {
+        return consumir(escritura, ip);
+    }
+
+    private long consumir(Regla regla, String clave) {
+        if (clave == null) {
+            return 0;
+        }
+        long ahora = System.nanoTime();
+        Cubeta cubeta = cubetas.get(regla.nombre() + ':' + clave, k -> new Cubeta(ahora));
+        long espera = cubeta.consumir(regla, ahora);
+        if (espera == 0) {
+            return 0;
+        }
+        rechazadasFrecuencia.increment();
+        return Math.max(1, TimeUnit.NANOSECONDS.toSeconds(espera + TimeUnit.SECONDS.toNanos(1) - 1));
+    }
+
+    // ----------------------------------------------------
+    // PETICIONES SIMULTÁNEAS (cada entrar() aceptado necesita su salir(); 0 = sin máximo)
+    // ----------------------------------------------------
+    public boolean entrar() {
+        int actuales = enCurso.incrementAndGet();
+        if (maximoSimultaneas > 0 && actuales > maximoSimultaneas) {
+            enCurso.decrementAndGet();
+            rechazadasSaturacion.increment();
+            return false;
+        }
+        return true;
+    }
+
+    public void salir() {
+        enCurso.decrementAndGet();
+    }
+}
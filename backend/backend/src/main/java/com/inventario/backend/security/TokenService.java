@@ -0,0 +1,199 @@
+package com.inventario.backend.security;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.LoadingCache;
+import com.inventario.backend.model.Usuario;
+
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import javax.crypto.Mac;
+import javax.crypto.spec.SecretKeySpec;
+import java.nio.charset.StandardCharsets;
+import java.security.GeneralSecurityException;
+import java.security.MessageDigest;
+import java.security.SecureRandom;
+import java.time.Duration;
+import java.util.Base64;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+// Tokens de sesión sin estado: JWT firmado con HMAC-SHA256 y clave local.
+// Los claims ya verificados se guardan en caché para que cada petición
+// autenticada no tenga que volver a decodificar ni recalcular la firma.
+// Revocación: el token lleva la version_token del usuario ("ver") y solo vale mientras
+// coincida con la actual. Las versiones se guardan en memoria y se releen en segundo plano
+// cada inventario.token.revision-segundos: en esta instancia la revocación es inmediata
+// (revocar) y en las demás tarda como mucho ese intervalo.
+@Service
+public class TokenService {
+
+    private static final Logger log = LoggerFactory.getLogger(TokenService.class);
+
+    private static final String ALGORITMO = "HmacSHA256";
+    private static final String CABECERA =
+            base64("{\"alg\":\"HS256\",\"typ\":\"JWT\"}".getBytes(StandardCharsets.UTF_8));
+
+    private static final String VERSION_TOKEN =
+            "SELECT version_token FROM usuarios WHERE id_usuario = ?";
+
+    private final byte[] clave;
+    private final long vigenciaSegundos;
+    private final ObjectMapper objectMapper;
+    private final Cache<String, DatosToken> tokensVerificados;
+    private final LoadingCache<Long, Integer> versionesToken;
+    private final JdbcTemplate jdbcTemplate;
+
+    public TokenService(ObjectMapper objectMapper,
+                        JdbcTemplate jdbcTemplate,
+                        @Value("${inventario.token.secreto:}") String secreto,
+                        @Value("${inventario.token.minutos:480}") long minutos,
+                        @Value("${inventario.token.revision-segundos:30}") long revisionSegundos,
+                        MeterRegistry registro) {
+        this.objectMapper = objectMapper;
+        this.jdbcTemplate = jdbcTemplate;
+        this.vigenciaSegundos = minutos * 60;
+
+        if (secreto == null || secreto.isBlank()) {
+            // Sin clave configurada se genera una aleatoria: los tokens no sobreviven a un reinicio
+            log.warn("inventario.token.secreto no está definido; se usará una clave aleatoria temporal.");
+            this.clave = new byte[32];
+            new SecureRandom().nextBytes(this.clave);
+        } else {
+            this.clave = secreto.getBytes(StandardCharsets.UTF_8);
+        }
+
+        this.tokensVerificados = Caffeine.newBuilder()
+                .maximumSize(10_000)
+                .expireAfterWrite(Duration.ofMinutes(10))
+                .recordStats()
+                .build();
+        // Mismas etiquetas que las cachés de Spring: Prometheus exige el mismo conjunto por métrica
+        CaffeineCacheMetrics.monitor(registro, tokensVerificados, "tokensVerificados",
+                "cache.manager", "tokenService", "name", "tokensVerificados");
+
+        // refreshAfterWrite relee fuera del hilo de la petición y mientras tanto sirve el valor guardado;
+        // solo la primera petición de un usuario que no inició sesión en esta instancia consulta la base
+        this.versionesToken = Caffeine.newBuilder()
+                .maximumSize(100_000)
+                .refreshAfterWrite(Duration.ofSeconds(revisionSegundos))
+                .expireAfterAccess(Duration.ofSeconds(vigenciaSegundos))
+                .recordStats()
+                .build(this::leerVersionToken);
+        CaffeineCacheMetrics.monitor(registro, versionesToken, "versionesToken",
+                "cache.manager", "tokenService", "name", "versionesToken");
+    }
+
+    // ----------------------------------------------------
+    // EMITIR TOKEN
+    // ----------------------------------------------------
+    public String emitir(Usuario usuario) {
+        long ahora = System.currentTimeMillis() / 1000;
+
+        Map<String, Object> claims = new LinkedHashMap<>();
+        claims.put("sub", String.valueOf(usuario.getIdUsuario()));
+        claims.put("ced", usuario.getCedula());
+        claims.put("rol", usuario.getRol() == null ? null : usuario.getRol().toUpperCase());
+        claims.put("ver", usuario.getVersionToken());
+        claims.put("iat", ahora);
+        claims.put("exp", ahora + vigenciaSegundos);
+
+        try {
+            String cuerpo = base64(objectMapper.writeValueAsBytes(claims));
+            String firmado = CABECERA + "." + cuerpo;
+            versionesToken.put(usuario.getIdUsuario(), usuario.getVersionToken());
+            return firmado + "." + base64(firmar(firmado));
+        } catch (Exception e) {
+            throw new IllegalStateException("No se pudo emitir el token.", e);
+        }
+    }
+
+    // ----------------------------------------------------
+    // REVOCAR LOS TOKENS DE UN USUARIO
+    //   versionVigente: la version_token ya guardada; los tokens con otra dejan de valer
+    // ----------------------------------------------------
+    public void revocar(Long idUsuario, int versionVigente) {
+        versionesToken.put(idUsuario, versionVigente);
+        tokensVerificados.asMap().values().removeIf(datos -> datos.idUsuario().equals(idUsuario));
+    }
+
+    // ----------------------------------------------------
+    // VERIFICAR TOKEN (vacío si la firma no es válida, expiró o fue revocado)
+    // ----------------------------------------------------
+    public Optional<DatosToken> verificar(String token) {
+        long ahora = System.currentTimeMillis() / 1000;
+
+        DatosToken datos = tokensVerificados.getIfPresent(token);
+        if (datos == null) {
+            datos = decodificar(token);
+            if (datos == null) {
+                return Optional.empty();
+            }
+            tokensVerificados.put(token, datos);
+        }
+
+        if (datos.expirado(ahora)) {
+            tokensVerificados.invalidate(token);
+            return Optional.empty();
+        }
+
+        // null: el usuario ya no existe
+        Integer vigente = versionesToken.get(datos.idUsuario());
+        if (vigente == null || vigente != datos.versionToken()) {
+            tokensVerificados.invalidate(token);
+            return Optional.empty();
+        }
+        return Optional.of(datos);
+    }
+
+    private Integer leerVersionToken(Long idUsuario) {
+        return jdbcTemplate.query(VERSION_TOKEN, rs -> rs.next() ? rs.getInt(1) : null, idUsuario);
+    }
+
+    private DatosToken decodificar(String token) {
+        int primerPunto = token.indexOf('.');
+        int segundoPunto = token.indexOf('.', primerPunto + 1);
+        if (primerPunto <= 0 || segundoPunto <= primerPunto || token.indexOf('.', segundoPunto + 1) != -1) {
+            return null;
+        }
+
+        try {
+            String firmado = token.substring(0, segundoPunto);
+            byte[] firma = Base64.getUrlDecoder().decode(token.substring(segundoPunto + 1));
+            if (!token.substring(0, primerPunto).equals(CABECERA)
+                    || !MessageDigest.isEqual(firma, firmar(firmado))) {
+                return null;
+            }
+
+            JsonNode claims = objectMapper.readTree(
+                    Base64.getUrlDecoder().decode(token.substring(primerPunto + 1, segundoPunto)));
+            return new DatosToken(
+                    Long.valueOf(claims.path("sub").asText()),
+                    claims.path("ced").asText(null),
+                    claims.path("rol").asText(null),
+                    claims.path("ver").asInt(),
+                    claims.path("exp").asLong());
+        } catch (Exception e) {
+            return null;
+        }
+    }
+
+    private byte[] firmar(String contenido) throws GeneralSecurityException {
+        Mac mac = Mac.getInstance(ALGORITMO);
+        mac.init(new SecretKeySpec(clave, ALGORITMO));
+        return mac.doFinal(contenido.getBytes(StandardCharsets.US_ASCII));
+    }
+
+    private static String base64(byte[] datos) {
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(datos);
+    }
+}
@@ -0,0 +1,173 @@
+package com.inventario.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
+
+// Cabecera Idempotency-Key en los POST que crean registros: las apps móviles reintentan cuando
+// se corta la red y el reintento no debe registrar dos veces.
+// - La clave vale por usuario y operación; se guarda la respuesta (en curso o terminada) con una
+//   huella SHA-256 de la petición. Un reintento igual recibe la misma respuesta, aunque la
+//   primera todavía no haya terminado; la misma clave con otra petición recibe 422.
+// - Caffeine con expiración y tamaño máximo: memoria acotada sin tarea de limpieza.
+// - No se guardan los errores 5xx ni 429 (ni las excepciones): se pueden reintentar con la misma clave.
+// - En memoria de la instancia: con varias réplicas, el balanceador debe repartir por usuario.
+@Component
+public class AlmacenIdempotencia {
+
+    public static final String CABECERA = "Idempotency-Key";
+    public static final String CABECERA_REPETIDA = "Idempotent-Replayed";
+
+    private static final int LONGITUD_MAXIMA_CLAVE = 255;
+
+    private record Entrada(byte[] huella, CompletableFuture<ResponseEntity<?>> respuesta) {
+    }
+
+    private final ObjectMapper objectMapper;
+    private final Cache<String, Entrada> entradas;
+    private final Counter repetidas;
+    private final Counter conflictos;
+
+    public AlmacenIdempotencia(ObjectMapper objectMapper,
+                               @Value("${inventario.idempotencia.horas:24}") long horas,
+                               @Value("${inventario.idempotencia.claves:100000}") long maximoClaves,
+                               MeterRegistry registro) {
+        this.objectMapper = objectMapper;
+        this.entradas = Caffeine.newBuilder()
+                .maximumSize(maximoClaves)
+                .expireAfterWrite(Duration.ofHours(horas))
+                .build();
+
+        Gauge.builder("inventario.idempotencia.claves", entradas, Cache::estimatedSize)
+                .description("Claves de idempotencia guardadas")
+                .register(registro);
+        this.repetidas = Counter.builder("inventario.idempotencia.repetidas")
+                .description("Reintentos respondidos con la respuesta guardada")
+                .register(registro);
+        this.conflictos = Counter.builder("inventario.idempotencia.conflictos")
+                .description("Claves reutilizadas con otra petición (422)")
+                .register(registro);
+    }
+
+    // ----------------------------------------------------
+    // EJECUTAR UNA SOLA VEZ POR CLAVE
+    //   clave: valor de la cabecera (null = sin idempotencia)
+    //   partes: lo que identifica la petición (cuerpo y campos que no se serializan, p. ej. contraseña)
+    // ----------------------------------------------------
+    public CompletableFuture<ResponseEntity<?>> ejecutar(String clave, String operacion,
+                                                         Supplier<CompletableFuture<ResponseEntity<?>>> accion,
+                                                         Object... partes) {
+        if (clave == null) {
+            return accion.get();
+        }
+        if (clave.isBlank() || clave.length() > LONGITUD_MAXIMA_CLAVE) {
+            return CompletableFuture.completedFuture(ResponseEntity.badRequest()
+                    .body("La cabecera " + CABECERA + " debe tener entre 1 y " + LONGITUD_MAXIMA_CLAVE + " caracteres."));
+        }
+
+        // La huella se calcula antes de ejecutar: la acción puede modificar la petición
+        String llave = actorActual() + ':' + operacion + ':' + clave;
+        byte[] huella = huella(partes);
+        Entrada propia = new Entrada(huella, new CompletableFuture<>());
+        Entrada existente = entradas.asMap().putIfAbsent(llave, propia);
+
+        if (existente != null) {
+            if (!MessageDigest.isEqual(existente.huella(), huella)) {
+                conflictos.increment();
+                return CompletableFuture.completedFuture(ResponseEntity.status(HttpStatus.UNPROCESSABLE_ENTITY)
+                        .body("La " + CABECERA + " ya se usó con otra petición."));
+            }
+            repetidas.increment();
+            return existente.respuesta().thenApply(AlmacenIdempotencia::marcarRepetida);
+        }
+
+        CompletableFuture<ResponseEntity<?>> resultado;
+        try {
+            resultado = accion.get();
+        } catch (RuntimeException e) {
+            descartar(llave, propia, null, e);
+            throw e;
+        }
+        resultado.whenComplete((respuesta, error) -> descartar(llave, propia, respuesta, error));
+        return propia.respuesta();
+    }
+
+    //  Para operaciones síncronas (la respuesta ya está lista al volver de la acción).
+    //  Un reintento que llega mientras la primera sigue en curso espera su resultado.
+    public ResponseEntity<?> ejecutarSincrono(String clave, String operacion,
+                                              Supplier<ResponseEntity<?>> accion, Object... partes) {
+        try {
+            return ejecutar(clave, operacion, () -> CompletableFuture.completedFuture(accion.get()), partes).join();
+        } catch (CompletionException e) {
+            // Mismo error que recibió la primera petición (lo traduce GlobalExceptionHandler)
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
+
+    // ----------------------------------------------------
+    // HELPERS
+    // ----------------------------------------------------
+
+    //  Completa la entrada y la quita si el resultado no debe repetirse
+    private void descartar(String llave, Entrada propia, ResponseEntity<?> respuesta, Throwable error) {
+        if (error != null || !reutilizable(respuesta)) {
+            entradas.asMap().remove(llave, propia);
+        }
+        if (error != null) {
+            propia.respuesta().completeExceptionally(error);
+        } else {
+            propia.respuesta().complete(respuesta);
+        }
+    }
+
+    private static boolean reutilizable(ResponseEntity<?> respuesta) {
+        int estado = respuesta.getStatusCode().value();
+        return estado < 500 && estado != HttpStatus.TOO_MANY_REQUESTS.value();
+    }
+
+    private static ResponseEntity<?> marcarRepetida(ResponseEntity<?> respuesta) {
+        return ResponseEntity.status(respuesta.getStatusCode())
+                .headers(respuesta.getHeaders())
+                .header(CABECERA_REPETIDA, "true")
+                .body(respuesta.getBody());
+    }
+
+    private byte[] huella(Object... partes) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            for (Object parte : partes) {
+                digest.update(objectMapper.writeValueAsBytes(parte));
+                digest.update((byte) 0);
+            }
+            return digest.digest();
+        } catch (NoSuchAlgorithmException | JsonProcessingException e) {
+            throw new IllegalStateException("No se pudo calcular la huella de la petición.", e);
+        }
+    }
+
+    private static String actorActual() {
+        Authentication auth = SecurityContextHolder.getContext().getAuthentication();
+        return auth == null ? "" : auth.getName();
+    }
+}
@@ -0,0 +1,165 @@
+package com.inventario.backend.service;
+
+import com.inventario.backend.dto.SerieMovimientos;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.sql.Date;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.YearMonth;
+import java.time.ZoneOffset;
+import java.time.temporal.ChronoUnit;
+import java.time.temporal.TemporalAdjusters;
+
+// Tendencias de movimientos para el panel de inicio.
+// Lee los resúmenes por día y por mes que mantiene el disparador de V6 (nunca el historial):
+// un rango se responde con los meses completos que contiene más los días sueltos de los bordes,
+// todo en una sola consulta. Las filas se acumulan en arreglos long[] indexados por periodo,
+// sin mapas ni objetos por fila.
+@Service
+public class AnaliticaService {
+
+    private static final int MAXIMO_PUNTOS = 400;
+
+    // Días en [?, ?) y [?, ?) (bordes del rango) + meses completos en [?, ?)
+    private static final String SERIE_REFERENCIA =
+            "SELECT dia, entradas, salidas, ajustes, movimientos FROM movimientos_dia"
+                    + " WHERE id_referencia = ? AND ((dia >= ? AND dia < ?) OR (dia >= ? AND dia < ?))"
+                    + " UNION ALL"
+                    + " SELECT mes, entradas, salidas, ajustes, movimientos FROM movimientos_mes"
+                    + " WHERE id_referencia = ? AND mes >= ? AND mes < ?";
+
+    private static final String SERIE_TODAS =
+            "SELECT dia, SUM(entradas), SUM(salidas), SUM(ajustes), SUM(movimientos) FROM movimientos_dia"
+                    + " WHERE (dia >= ? AND dia < ?) OR (dia >= ? AND dia < ?) GROUP BY dia"
+                    + " UNION ALL"
+                    + " SELECT mes, SUM(entradas), SUM(salidas), SUM(ajustes), SUM(movimientos) FROM movimientos_mes"
+                    + " WHERE mes >= ? AND mes < ? GROUP BY mes";
+
+    private enum Agrupacion {
+        DIA, SEMANA, MES;
+
+        static Agrupacion leer(String valor) {
+            if (valor == null || valor.isBlank()) {
+                return DIA;
+            }
+            switch (valor.trim().toLowerCase()) {
+                case "dia":
+                case "día":
+                    return DIA;
+                case "semana":
+                    return SEMANA;
+                case "mes":
+                    return MES;
+                default:
+                    throw new IllegalArgumentException("Agrupación no soportada. Use dia, semana o mes.");
+            }
+        }
+
+        // Rango por defecto: 30 días, 12 semanas o 12 meses hasta fin
+        LocalDate desdePorDefecto(LocalDate fin) {
+            return switch (this) {
+                case DIA -> fin.minusDays(29);
+                case SEMANA -> fin.minusWeeks(11);
+                case MES -> fin.withDayOfMonth(1).minusMonths(11);
+            };
+        }
+
+        // Inicio del periodo que contiene la fecha (las semanas empiezan el lunes)
+        LocalDate inicioPeriodo(LocalDate fecha) {
+            return switch (this) {
+                case DIA -> fecha;
+                case SEMANA -> fecha.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY));
+                case MES -> fecha.withDayOfMonth(1);
+            };
+        }
+
+        int indice(LocalDate primero, LocalDate fecha) {
+            return (int) switch (this) {
+                case DIA -> ChronoUnit.DAYS.between(primero, fecha);
+                case SEMANA -> ChronoUnit.DAYS.between(primero, fecha) / 7;
+                case MES -> ChronoUnit.MONTHS.between(YearMonth.from(primero), YearMonth.from(fecha));
+            };
+        }
+
+        LocalDate inicio(LocalDate primero, int indice) {
+            return switch (this) {
+                case DIA -> primero.plusDays(indice);
+                case SEMANA -> primero.plusWeeks(indice);
+                case MES -> primero.plusMonths(indice);
+            };
+        }
+    }
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // ----------------------------------------------------
+    // SERIE POR PERIODO (idReferencia nulo = todas las referencias)
+    // ----------------------------------------------------
+    @Transactional(readOnly = true)
+    public SerieMovimientos obtenerSerie(Long idReferencia, LocalDate desde, LocalDate hasta, String agrupar) {
+        Agrupacion agrupacion = Agrupacion.leer(agrupar);
+        LocalDate fin = hasta != null ? hasta : LocalDate.now(ZoneOffset.UTC);
+        LocalDate inicio = desde != null ? desde : agrupacion.desdePorDefecto(fin);
+        if (inicio.isAfter(fin)) {
+            throw new IllegalArgumentException("La fecha desde no puede ser posterior a hasta.");
+        }
+
+        LocalDate primero = agrupacion.inicioPeriodo(inicio);
+        int puntos = agrupacion.indice(primero, fin) + 1;
+        if (puntos > MAXIMO_PUNTOS) {
+            throw new IllegalArgumentException("Máximo " + MAXIMO_PUNTOS + " periodos por serie; use una agrupación mayor.");
+        }
+
+        // Meses completos dentro del rango (solo al agrupar por mes); el resto sale de los días
+        LocalDate finExclusivo = fin.plusDays(1);
+        LocalDate mesesDesde = finExclusivo;
+        LocalDate mesesHasta = finExclusivo;
+        if (agrupacion == Agrupacion.MES) {
+            LocalDate primerMes = inicio.getDayOfMonth() == 1 ? inicio : inicio.withDayOfMonth(1).plusMonths(1);
+            LocalDate finMeses = finExclusivo.withDayOfMonth(1);
+            if (primerMes.isBefore(finMeses)) {
+                mesesDesde = primerMes;
+                mesesHasta = finMeses;
+            }
+        }
+        LocalDate diasHasta = mesesDesde.isBefore(finExclusivo) ? mesesDesde : finExclusivo;
+
+        SerieMovimientos serie = new SerieMovimientos(idReferencia, agrupacion.name().toLowerCase(), inicio, fin,
+                new LocalDate[puntos], new long[puntos], new long[puntos], new long[puntos], new long[puntos]);
+        for (int i = 0; i < puntos; i++) {
+            serie.getInicios()[i] = agrupacion.inicio(primero, i);
+        }
+
+        Date[] rangos = {
+                Date.valueOf(inicio), Date.valueOf(diasHasta),        // días antes del primer mes completo
+                Date.valueOf(mesesHasta), Date.valueOf(finExclusivo), // días después del último
+                Date.valueOf(mesesDesde), Date.valueOf(mesesHasta) }; // meses completos
+
+        if (idReferencia == null) {
+            jdbcTemplate.query(SERIE_TODAS, (ResultSet rs) -> acumular(rs, serie, agrupacion, primero),
+                    (Object[]) rangos);
+        } else {
+            jdbcTemplate.query(SERIE_REFERENCIA, (ResultSet rs) -> acumular(rs, serie, agrupacion, primero),
+                    idReferencia, rangos[0], rangos[1], rangos[2], rangos[3],
+                    idReferencia, rangos[4], rangos[5]);
+        }
+        return serie;
+    }
+
+    private static void acumular(ResultSet rs, SerieMovimientos serie, Agrupacion agrupacion, LocalDate primero)
+            throws SQLException {
+        int i = agrupacion.indice(primero, rs.getDate(1).toLocalDate());
+        serie.getEntradas()[i] += rs.getLong(2);
+        serie.getSalidas()[i] += rs.getLong(3);
+        serie.getAjustes()[i] += rs.getLong(4);
+        serie.getMovimientos()[i] += rs.getLong(5);
+    }
+}
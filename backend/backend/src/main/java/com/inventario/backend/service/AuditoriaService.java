@@ -0,0 +1,90 @@
+package com.inventario.backend.service;
+
+import com.inventario.backend.dto.EntradaAuditoria;
+import com.inventario.backend.dto.PaginaAuditoria;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.ArrayList;
+import java.util.List;
+
+// Consulta del registro de auditoría (la escritura está en RegistroAuditoria).
+// Paginación por cursor sobre id_auditoria descendente: cada página es un rango del índice,
+// sin OFFSET ni COUNT.
+@Service
+public class AuditoriaService {
+
+    private static final int TAMANO_DEFECTO = 50;
+    private static final int TAMANO_MAXIMO = 500;
+
+    private static final String SELECCION =
+            "SELECT id_auditoria, fecha, id_usuario, entidad, id_entidad, accion, detalle FROM auditoria";
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // ----------------------------------------------------
+    // PÁGINA (filtros opcionales: entidad, idEntidad, idUsuario)
+    // ----------------------------------------------------
+    @Transactional(readOnly = true)
+    public PaginaAuditoria obtenerPagina(String entidad, Long idEntidad, Long idUsuario,
+                                         String antes, Integer tamano) {
+        if (idEntidad != null && entidad == null) {
+            throw new IllegalArgumentException("Para filtrar por idEntidad indique también la entidad.");
+        }
+        if (entidad != null && !entidad.equals(RegistroAuditoria.ENTIDAD_USUARIO)
+                && !entidad.equals(RegistroAuditoria.ENTIDAD_REFERENCIA)) {
+            throw new IllegalArgumentException("Entidad no soportada. Use usuario o referencia.");
+        }
+        int limite = (tamano == null || tamano <= 0) ? TAMANO_DEFECTO : Math.min(tamano, TAMANO_MAXIMO);
+
+        StringBuilder sql = new StringBuilder(SELECCION).append(" WHERE TRUE");
+        List<Object> parametros = new ArrayList<>();
+        if (entidad != null) {
+            sql.append(" AND entidad = ?");
+            parametros.add(entidad);
+        }
+        if (idEntidad != null) {
+            sql.append(" AND id_entidad = ?");
+            parametros.add(idEntidad);
+        }
+        if (idUsuario != null) {
+            sql.append(" AND id_usuario = ?");
+            parametros.add(idUsuario);
+        }
+        if (antes != null && !antes.isBlank()) {
+            sql.append(" AND id_auditoria < ?");
+            parametros.add(leerCursor(antes));
+        }
+        sql.append(" ORDER BY id_auditoria DESC LIMIT ?");
+        parametros.add(limite + 1);
+
+        List<EntradaAuditoria> filas = jdbcTemplate.query(sql.toString(), (rs, n) -> new EntradaAuditoria(
+                rs.getLong("id_auditoria"),
+                rs.getTimestamp("fecha").toInstant(),
+                rs.getObject("id_usuario", Long.class),
+                rs.getString("entidad"),
+                rs.getObject("id_entidad", Long.class),
+                rs.getString("accion"),
+                rs.getString("detalle")), parametros.toArray());
+
+        // Se pide uno de más para saber si hay otra página
+        if (filas.size() <= limite) {
+            return new PaginaAuditoria(filas, null);
+        }
+        List<EntradaAuditoria> elementos = filas.subList(0, limite);
+        return new PaginaAuditoria(List.copyOf(elementos),
+                Long.toString(elementos.get(limite - 1).idAuditoria()));
+    }
+
+    private long leerCursor(String antes) {
+        try {
+            return Long.parseLong(antes.trim());
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("El cursor no es válido.");
+        }
+    }
+}
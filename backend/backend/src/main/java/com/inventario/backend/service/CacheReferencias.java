@@ -0,0 +1,133 @@
+package com.inventario.backend.service;
+
+import com.inventario.backend.config.CacheConfig;
+import com.inventario.backend.dto.ReferenciaPublica;
+import com.inventario.backend.model.Referencia;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Cachés de referencias (por id, por código y listas por estado) con lectura y escritura coherentes.
+// - Solo se guardan copias inmutables (ReferenciaPublica, List.copyOf): nadie puede modificar
+//   un valor compartido entre peticiones.
+// - Cada escritura incrementa una generación antes de tocar la caché. Una lectura que empezó
+//   antes (y pudo leer la fila anterior de la base de datos) ve la generación cambiada al
+//   terminar y quita lo que guardó, en lugar de dejarlo hasta que expire.
+// - Por id y por código una entrada nunca reemplaza a otra con versión mayor.
+@Component
+public class CacheReferencias {
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    private final AtomicLong generacion = new AtomicLong();
+
+    // ----------------------------------------------------
+    // LECTURAS
+    //   cargar devuelve null si no existe (no se cachea)
+    // ----------------------------------------------------
+    public ReferenciaPublica porId(Long id, Supplier<ReferenciaPublica> cargar) {
+        return leer(CacheConfig.REFERENCIAS_POR_ID, id, cargar);
+    }
+
+    public ReferenciaPublica porCodigo(String codigo, Supplier<ReferenciaPublica> cargar) {
+        return leer(CacheConfig.REFERENCIAS_POR_CODIGO, codigo, cargar);
+    }
+
+    public List<ReferenciaPublica> porEstado(boolean activo, Supplier<List<ReferenciaPublica>> cargar) {
+        return leer(CacheConfig.REFERENCIAS_POR_ESTADO, activo, () -> List.copyOf(cargar.get()));
+    }
+
+    // ----------------------------------------------------
+    // ESCRITURAS (después de confirmar en la base de datos)
+    // ----------------------------------------------------
+
+    // Referencia nueva o modificada. codigoAnterior/activoAnterior son null en un registro.
+    public void guardada(Referencia referencia, String codigoAnterior, Boolean activoAnterior) {
+        generacion.incrementAndGet();
+        ReferenciaPublica copia = ReferenciaPublica.de(referencia);
+
+        guardarSiMasReciente(CacheConfig.REFERENCIAS_POR_ID, copia.idReferencia(), copia);
+
+        if (codigoAnterior != null && !codigoAnterior.equals(copia.codigo())) {
+            cache(CacheConfig.REFERENCIAS_POR_CODIGO).evict(codigoAnterior);
+        }
+        guardarSiMasReciente(CacheConfig.REFERENCIAS_POR_CODIGO, copia.codigo(), copia);
+
+        Cache porEstado = cache(CacheConfig.REFERENCIAS_POR_ESTADO);
+        porEstado.evict(copia.activo());
+        if (activoAnterior != null && activoAnterior != copia.activo()) {
+            porEstado.evict(activoAnterior);
+        }
+    }
+
+    // Inserciones masivas: las listas por estado dejan de ser válidas
+    public void listasModificadas() {
+        generacion.incrementAndGet();
+        cache(CacheConfig.REFERENCIAS_POR_ESTADO).clear();
+    }
+
+    // ----------------------------------------------------
+    // HELPERS
+    // ----------------------------------------------------
+
+    @SuppressWarnings("unchecked")
+    private <T> T leer(String nombre, Object clave, Supplier<T> cargar) {
+        Cache cache = cache(nombre);
+        Cache.ValueWrapper guardado = cache.get(clave);
+        if (guardado != null) {
+            return (T) guardado.get();
+        }
+
+        // La generación se lee antes de consultar: si cambia, el valor puede ser anterior a la escritura
+        long antes = generacion.get();
+        T valor = cargar.get();
+        if (valor == null) {
+            return null;
+        }
+        if (valor instanceof ReferenciaPublica referencia) {
+            guardarSiMasReciente(nombre, clave, referencia);
+        } else {
+            cache.putIfAbsent(clave, valor);
+        }
+        if (generacion.get() != antes) {
+            // Quitar de más solo cuesta una lectura; dejar un valor viejo lo sirve hasta que expire
+            cache.evict(clave);
+        }
+        return valor;
+    }
+
+    private void guardarSiMasReciente(String nombre, Object clave, ReferenciaPublica referencia) {
+        mapa(nombre).merge(clave, referencia, (actual, nueva) ->
+                actual instanceof ReferenciaPublica previa && previa.version() > referencia.version()
+                        ? previa
+                        : nueva);
+    }
+
+    @SuppressWarnings("unchecked")
+    private ConcurrentMap<Object, Object> mapa(String nombre) {
+        Object nativa = cache(nombre).getNativeCache();
+        if (nativa instanceof com.github.benmanes.caffeine.cache.Cache<?, ?> caffeine) {
+            return ((com.github.benmanes.caffeine.cache.Cache<Object, Object>) caffeine).asMap();
+        }
+        if (nativa instanceof ConcurrentMap<?, ?> mapa) {
+            return (ConcurrentMap<Object, Object>) mapa;
+        }
+        throw new IllegalStateException("La caché " + nombre + " no admite escrituras condicionales.");
+    }
+
+    private Cache cache(String nombre) {
+        Cache cache = cacheManager.getCache(nombre);
+        if (cache == null) {
+            throw new IllegalStateException("No existe la caché " + nombre);
+        }
+        return cache;
+    }
+}
@@ -0,0 +1,152 @@
+package com.inventario.backend.service;
+
+import com.inventario.backend.metricas.ContadorSentencias;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.stereotype.Service;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+// Ejecuta BCrypt en un pool propio y acotado, fuera de los hilos de Tomcat.
+// Si el pool y su cola están llenos la tarea se rechaza de inmediato
+// (RejectedExecutionException) en lugar de acumular latencia.
+@Service
+public class ContrasenaService {
+
+    private final PasswordEncoder passwordEncoder;
+    private final ThreadPoolExecutor executor;
+    private final AtomicLong rechazadas = new AtomicLong();
+    private final Timer tiempoCodificar;
+    private final Timer tiempoVerificar;
+
+    // Hash de referencia para comparar cuando la cédula no existe,
+    // así el tiempo de respuesta no revela si el usuario está registrado.
+    private final String hashFicticio;
+
+    public ContrasenaService(PasswordEncoder passwordEncoder,
+                             @Value("${inventario.hash.hilos:0}") int hilos,
+                             @Value("${inventario.hash.cola:64}") int cola,
+                             MeterRegistry registro) {
+        this.passwordEncoder = passwordEncoder;
+
+        int tamano = hilos > 0 ? hilos : Runtime.getRuntime().availableProcessors();
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(tamano, tamano, 0L, TimeUnit.MILLISECONDS,
+                new ArrayBlockingQueue<>(cola),
+                tarea -> {
+                    Thread hilo = new Thread(tarea, "hash-contrasena-" + contador.incrementAndGet());
+                    hilo.setDaemon(true);
+                    return hilo;
+                },
+                new ThreadPoolExecutor.AbortPolicy());
+
+        this.hashFicticio = passwordEncoder.encode("contrasena-ficticia-para-tiempo-constante");
+
+        // Tiempo de BCrypt (sin la espera en cola) y estado del pool
+        this.tiempoCodificar = temporizador(registro, "codificar");
+        this.tiempoVerificar = temporizador(registro, "verificar");
+        Gauge.builder("inventario.contrasena.cola", executor, e -> e.getQueue().size())
+                .description("Tareas de BCrypt esperando un hilo")
+                .register(registro);
+        Gauge.builder("inventario.contrasena.activos", executor, ThreadPoolExecutor::getActiveCount)
+                .description("Hilos calculando BCrypt")
+                .register(registro);
+        FunctionCounter.builder("inventario.contrasena.rechazadas", rechazadas, AtomicLong::get)
+                .description("Tareas rechazadas con el pool y la cola llenos")
+                .register(registro);
+    }
+
+    private static Timer temporizador(MeterRegistry registro, String operacion) {
+        return Timer.builder("inventario.contrasena.hash")
+                .description("Duración de BCrypt")
+                .tag("operacion", operacion)
+                .publishPercentileHistogram()
+                .register(registro);
+    }
+
+    // ----------------------------------------------------
+    // CODIFICAR
+    // ----------------------------------------------------
+    public CompletableFuture<String> codificar(String contrasena) {
+        return enviar(() -> tiempoCodificar.record(() -> passwordEncoder.encode(contrasena)));
+    }
+
+    // ----------------------------------------------------
+    // CODIFICAR UN LOTE
+    //   Una tarea por hilo del pool, cada una con su parte del lote: usa todos los núcleos
+    //   sin llenar la cola y los logins que lleguen mientras tanto se intercalan entre tareas
+    // ----------------------------------------------------
+    public CompletableFuture<List<String>> codificarLote(List<String> contrasenas) {
+        int total = contrasenas.size();
+        int partes = Math.min(executor.getMaximumPoolSize(), total);
+        String[] hashes = new String[total];
+
+        CompletableFuture<?>[] tareas = new CompletableFuture<?>[partes];
+        for (int parte = 0; parte < partes; parte++) {
+            int inicio = parte;
+            tareas[parte] = enviar(() -> {
+                for (int i = inicio; i < total; i += partes) {
+                    String contrasena = contrasenas.get(i);
+                    hashes[i] = tiempoCodificar.record(() -> passwordEncoder.encode(contrasena));
+                }
+                return null;
+            });
+        }
+        return CompletableFuture.allOf(tareas).thenApply(listo -> Arrays.asList(hashes));
+    }
+
+    // ----------------------------------------------------
+    // VERIFICAR (hashGuardado null = usuario inexistente)
+    // ----------------------------------------------------
+    public CompletableFuture<Boolean> coincide(String contrasena, String hashGuardado) {
+        String hash = hashGuardado != null ? hashGuardado : hashFicticio;
+        return enviar(() -> tiempoVerificar.record(() -> passwordEncoder.matches(contrasena, hash))
+                && hashGuardado != null);
+    }
+
+    private <T> CompletableFuture<T> enviar(Supplier<T> tarea) {
+        try {
+            // La tarea (y lo que se encadene a ella) cuenta en la petición que la envió
+            return CompletableFuture.supplyAsync(tarea,
+                    trabajo -> executor.execute(ContadorSentencias.propagar(trabajo)));
+        } catch (RejectedExecutionException e) {
+            rechazadas.incrementAndGet();
+            return CompletableFuture.failedFuture(e);
+        }
+    }
+
+    // ----------------------------------------------------
+    // MÉTRICAS DEL POOL
+    // ----------------------------------------------------
+    public int getEnCola() {
+        return executor.getQueue().size();
+    }
+
+    public int getActivos() {
+        return executor.getActiveCount();
+    }
+
+    public long getRechazadas() {
+        return rechazadas.get();
+    }
+
+    @PreDestroy
+    public void cerrar() {
+        executor.shutdown();
+    }
+}
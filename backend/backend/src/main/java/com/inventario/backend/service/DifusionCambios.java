@@ -0,0 +1,245 @@
+package com.inventario.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter.DataWithMediaType;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+// Difunde los cambios de referencias y usuarios a los clientes conectados por SSE.
+// - Cada cambio se serializa una sola vez y se encola en el buffer acotado de cada suscriptor.
+// - Quien publica nunca escribe en un socket: el envío lo hace un pool pequeño, un suscriptor a la vez.
+// - Si el buffer de un suscriptor se llena (cliente lento o caído) se le desconecta;
+//   al reconectar se pone al día con /changes?since=<token>.
+// - Los eventos no llevan id: el token para reanudar es siempre el de la última página de
+//   /changes. Una transacción más antigua puede confirmar después de una posterior, y solo
+//   /changes espera a que terminen (horizonte de V11) antes de avanzar el token.
+@Component
+public class DifusionCambios {
+
+    public static final String CANAL_REFERENCIAS = "referencias";
+    public static final String CANAL_USUARIOS = "usuarios";
+
+    private static final Logger log = LoggerFactory.getLogger(DifusionCambios.class);
+
+    private final ObjectMapper objectMapper;
+    private final int capacidadBuffer;
+    private final int maximoSuscriptores;
+    private final long duracionMs;
+    private final ScheduledThreadPoolExecutor executor;
+
+    private final Map<String, Set<Suscriptor>> canales = new ConcurrentHashMap<>();
+    private final AtomicInteger suscriptores = new AtomicInteger();
+    private final AtomicLong expulsados = new AtomicLong();
+
+    private static final class Suscriptor {
+        private final String canal;
+        private final SseEmitter emitter;
+        private final BlockingQueue<Set<DataWithMediaType>> pendientes;
+        private final AtomicBoolean enviando = new AtomicBoolean();
+        private final AtomicBoolean cerrado = new AtomicBoolean();
+
+        private Suscriptor(String canal, SseEmitter emitter, int capacidad) {
+            this.canal = canal;
+            this.emitter = emitter;
+            this.pendientes = new ArrayBlockingQueue<>(capacidad);
+        }
+    }
+
+    public DifusionCambios(ObjectMapper objectMapper,
+                           @Value("${inventario.eventos.buffer:256}") int capacidadBuffer,
+                           @Value("${inventario.eventos.maximo-suscriptores:2000}") int maximoSuscriptores,
+                           @Value("${inventario.eventos.hilos:4}") int hilos,
+                           @Value("${inventario.eventos.minutos:30}") long minutos,
+                           @Value("${inventario.eventos.latido-segundos:20}") long latidoSegundos,
+                           MeterRegistry registro) {
+        this.objectMapper = objectMapper;
+        this.capacidadBuffer = capacidadBuffer;
+        this.maximoSuscriptores = maximoSuscriptores;
+        this.duracionMs = TimeUnit.MINUTES.toMillis(minutos);
+
+        AtomicInteger contador = new AtomicInteger();
+        this.executor = new ScheduledThreadPoolExecutor(hilos, tarea -> {
+            Thread hilo = new Thread(tarea, "difusion-cambios-" + contador.incrementAndGet());
+            hilo.setDaemon(true);
+            return hilo;
+        });
+
+        // Los latidos mantienen viva la conexión en proxies y detectan clientes que ya no están
+        executor.scheduleAtFixedRate(this::latir, latidoSegundos, latidoSegundos, TimeUnit.SECONDS);
+
+        Gauge.builder("inventario.eventos.suscriptores", suscriptores, AtomicInteger::get)
+                .description("Conexiones SSE abiertas")
+                .register(registro);
+        FunctionCounter.builder("inventario.eventos.expulsados", expulsados, AtomicLong::get)
+                .description("Suscriptores desconectados por llenar su buffer")
+                .register(registro);
+    }
+
+    // ----------------------------------------------------
+    // SUSCRIBIR
+    // ----------------------------------------------------
+    public SseEmitter suscribir(String canal) {
+        if (suscriptores.incrementAndGet() > maximoSuscriptores) {
+            suscriptores.decrementAndGet();
+            throw new RejectedExecutionException("Se alcanzó el máximo de conexiones de eventos.");
+        }
+
+        // Al vencer el plazo el cliente reconecta; así no quedan conexiones abiertas indefinidamente
+        SseEmitter emitter = new SseEmitter(duracionMs);
+        Suscriptor suscriptor = new Suscriptor(canal, emitter, capacidadBuffer);
+        emitter.onCompletion(() -> quitar(suscriptor));
+        emitter.onTimeout(() -> quitar(suscriptor));
+        emitter.onError(e -> quitar(suscriptor));
+
+        canales.computeIfAbsent(canal, c -> ConcurrentHashMap.newKeySet()).add(suscriptor);
+        encolar(suscriptor, SseEmitter.event().comment("conectado").build());
+        return emitter;
+    }
+
+    // ----------------------------------------------------
+    // PUBLICAR (una serialización por cambio, sin bloquear a quien publica)
+    // ----------------------------------------------------
+    public void publicar(String canal, String accion, Object datos) {
+        Set<Suscriptor> destino = canales.get(canal);
+        if (destino == null || destino.isEmpty()) {
+            return;
+        }
+
+        String json;
+        try {
+            json = objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo serializar el evento {} del canal {}", accion, canal, e);
+            return;
+        }
+
+        Set<DataWithMediaType> evento = SseEmitter.event()
+                .name(accion)
+                .data(json)
+                .build();
+
+        for (Suscriptor suscriptor : destino) {
+            encolar(suscriptor, evento);
+        }
+    }
+
+    private void latir() {
+        Set<DataWithMediaType> latido = SseEmitter.event().comment("latido").build();
+        for (Set<Suscriptor> destino : canales.values()) {
+            for (Suscriptor suscriptor : destino) {
+                encolar(suscriptor, latido);
+            }
+        }
+    }
+
+    // ----------------------------------------------------
+    // ENVÍO POR SUSCRIPTOR
+    // ----------------------------------------------------
+    private void encolar(Suscriptor suscriptor, Set<DataWithMediaType> evento) {
+        if (suscriptor.cerrado.get()) {
+            return;
+        }
+        if (!suscriptor.pendientes.offer(evento)) {
+            // Cliente lento: se desconecta en lugar de acumular memoria o frenar a los demás
+            expulsados.incrementAndGet();
+            cerrar(suscriptor);
+            return;
+        }
+        programarEnvio(suscriptor);
+    }
+
+    private void programarEnvio(Suscriptor suscriptor) {
+        if (suscriptor.enviando.compareAndSet(false, true)) {
+            try {
+                executor.execute(() -> vaciar(suscriptor));
+            } catch (RejectedExecutionException e) {
+                // Aplicación deteniéndose
+                suscriptor.enviando.set(false);
+            }
+        }
+    }
+
+    private void vaciar(Suscriptor suscriptor) {
+        try {
+            Set<DataWithMediaType> evento;
+            while (!suscriptor.cerrado.get() && (evento = suscriptor.pendientes.poll()) != null) {
+                suscriptor.emitter.send(evento);
+            }
+        } catch (Exception e) {
+            // Conexión cerrada por el cliente
+            cerrar(suscriptor);
+        } finally {
+            suscriptor.enviando.set(false);
+        }
+
+        // Un evento pudo llegar entre el último poll y la liberación del indicador
+        if (!suscriptor.cerrado.get() && !suscriptor.pendientes.isEmpty()) {
+            programarEnvio(suscriptor);
+        }
+    }
+
+    private void cerrar(Suscriptor suscriptor) {
+        if (quitar(suscriptor)) {
+            try {
+                suscriptor.emitter.complete();
+            } catch (Exception ignorada) {
+                // La conexión ya no existe
+            }
+        }
+    }
+
+    private boolean quitar(Suscriptor suscriptor) {
+        if (!suscriptor.cerrado.compareAndSet(false, true)) {
+            return false;
+        }
+        Set<Suscriptor> destino = canales.get(suscriptor.canal);
+        if (destino != null) {
+            destino.remove(suscriptor);
+        }
+        suscriptor.pendientes.clear();
+        suscriptores.decrementAndGet();
+        return true;
+    }
+
+    // ----------------------------------------------------
+    // MÉTRICAS
+    // ----------------------------------------------------
+    public int getSuscriptores() {
+        return suscriptores.get();
+    }
+
+    public long getExpulsados() {
+        return expulsados.get();
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+        for (Set<Suscriptor> destino : canales.values()) {
+            for (Suscriptor suscriptor : destino) {
+                cerrar(suscriptor);
+            }
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package com.inventario.backend.service;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.backend.utils.FormatoArchivo;
+import com.inventario.backend.utils.FormatoCsv;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.zip.GZIPOutputStream;
+
+// Exportación completa de catálogos leyendo con un cursor de solo avance.
+// El driver de PostgreSQL solo usa cursor (fetchSize) dentro de una transacción,
+// por eso cada exportación corre en una transacción de solo lectura.
+@Service
+public class ExportacionService {
+
+    private static final int FILAS_POR_FETCH = 1000;
+
+    private static final String CONSULTA_REFERENCIAS =
+            "SELECT id_referencia, codigo, nombre, activo FROM referencias ORDER BY id_referencia";
+
+    private static final String CONSULTA_USUARIOS =
+            "SELECT id_usuario, nombre, cedula, correo, rol, activo FROM usuarios ORDER BY id_usuario";
+
+    private final JdbcTemplate jdbcCursor;
+    private final TransactionTemplate soloLectura;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    public ExportacionService(DataSource dataSource, PlatformTransactionManager transactionManager) {
+        this.jdbcCursor = new JdbcTemplate(dataSource);
+        this.jdbcCursor.setFetchSize(FILAS_POR_FETCH);
+
+        this.soloLectura = new TransactionTemplate(transactionManager);
+        this.soloLectura.setReadOnly(true);
+    }
+
+    // ----------------------------------------------------
+    // REFERENCIAS
+    // ----------------------------------------------------
+    public void exportarReferencias(OutputStream salida, FormatoArchivo formato, boolean comprimir)
+            throws IOException {
+        exportar(salida, formato, comprimir, CONSULTA_REFERENCIAS,
+                new String[] { "idReferencia", "codigo", "nombre", "activo" });
+    }
+
+    // ----------------------------------------------------
+    // USUARIOS (nunca se exporta la contraseña)
+    // ----------------------------------------------------
+    public void exportarUsuarios(OutputStream salida, FormatoArchivo formato, boolean comprimir)
+            throws IOException {
+        exportar(salida, formato, comprimir, CONSULTA_USUARIOS,
+                new String[] { "idUsuario", "nombre", "cedula", "correo", "rol", "activo" });
+    }
+
+    private void exportar(OutputStream salida, FormatoArchivo formato, boolean comprimir,
+                          String consulta, String[] campos) throws IOException {
+
+        OutputStream destino = comprimir ? new GZIPOutputStream(salida, 64 * 1024) : salida;
+        Writer escritor = new BufferedWriter(new OutputStreamWriter(destino, StandardCharsets.UTF_8), 64 * 1024);
+
+        try {
+            if (formato == FormatoArchivo.CSV) {
+                escritor.write(String.join(",", campos));
+                escritor.write('\n');
+                soloLectura.executeWithoutResult(estado ->
+                        jdbcCursor.query(consulta, (RowCallbackHandler) rs -> escribirCsv(rs, campos.length, escritor)));
+            } else {
+                JsonGenerator generador = objectMapper.getFactory().createGenerator(escritor);
+                generador.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                generador.setRootValueSeparator(null);
+                soloLectura.executeWithoutResult(estado ->
+                        jdbcCursor.query(consulta, (RowCallbackHandler) rs -> escribirNdjson(rs, campos, generador)));
+                generador.flush();
+            }
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+
+        escritor.flush();
+        if (destino instanceof GZIPOutputStream gzip) {
+            gzip.finish();
+        }
+    }
+
+    private void escribirCsv(ResultSet rs, int columnas, Writer escritor) throws SQLException {
+        try {
+            for (int i = 1; i <= columnas; i++) {
+                if (i > 1) {
+                    escritor.write(',');
+                }
+                Object valor = rs.getObject(i);
+                escritor.write(valor == null ? "" : FormatoCsv.escapar(valor.toString()));
+            }
+            escritor.write('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    private void escribirNdjson(ResultSet rs, String[] campos, JsonGenerator generador) throws SQLException {
+        try {
+            generador.writeStartObject();
+            for (int i = 0; i < campos.length; i++) {
+                Object valor = rs.getObject(i + 1);
+                generador.writeFieldName(campos[i]);
+                if (valor == null) {
+                    generador.writeNull();
+                } else if (valor instanceof Number numero) {
+                    generador.writeNumber(numero.longValue());
+                } else if (valor instanceof Boolean booleano) {
+                    generador.writeBoolean(booleano);
+                } else {
+                    generador.writeString(valor.toString());
+                }
+            }
+            generador.writeEndObject();
+            generador.writeRaw('\n');
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
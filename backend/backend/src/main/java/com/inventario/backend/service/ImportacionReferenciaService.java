@@ -0,0 +1,297 @@
+package com.inventario.backend.service;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.backend.dto.ResultadoImportacion;
+import com.inventario.backend.model.Referencia;
+import com.inventario.backend.utils.FormatoArchivo;
+import com.inventario.backend.utils.FormatoCsv;
+import com.inventario.backend.utils.ValidadorDatos;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+@Service
+public class ImportacionReferenciaService {
+
+    private static final int TAMANO_LOTE = 500;
+    private static final int MAXIMO_ERRORES_DETALLADOS = 1000;
+
+    // Un INSERT por lote: las filas que chocan con un código o nombre existente se saltan
+    // (ON CONFLICT DO NOTHING) y RETURNING dice cuáles se guardaron
+    private static final String INSERTAR_LOTE =
+            "INSERT INTO referencias (codigo, nombre, activo)"
+                    + " SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::boolean[])"
+                    + " ON CONFLICT DO NOTHING RETURNING codigo";
+
+    private static final String EXISTENTES =
+            "SELECT codigo, nombre FROM referencias WHERE codigo = ANY(?) OR nombre = ANY(?)";
+
+    @Autowired
+    private CacheReferencias cacheReferencias;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private RegistroAuditoria registroAuditoria;
+
+    private record Fila(long linea, Referencia referencia) {
+    }
+
+    // ----------------------------------------------------
+    // IMPORTAR (lectura en streaming, escritura por lotes)
+    // ----------------------------------------------------
+    public ResultadoImportacion importar(InputStream entrada, FormatoArchivo formato) throws IOException {
+
+        ResultadoImportacion resultado = new ResultadoImportacion();
+
+        // Códigos y nombres ya vistos en el archivo, para detectar repetidos sin ir a la BD
+        Set<String> codigosVistos = new HashSet<>();
+        Set<String> nombresVistos = new HashSet<>();
+        List<Fila> lote = new ArrayList<>(TAMANO_LOTE);
+
+        try (BufferedReader lector = new BufferedReader(
+                new InputStreamReader(entrada, StandardCharsets.UTF_8))) {
+
+            String linea;
+            long numero = 0;
+            boolean primera = true;
+
+            while ((linea = lector.readLine()) != null) {
+                numero++;
+                if (linea.isBlank()) {
+                    continue;
+                }
+                if (primera) {
+                    primera = false;
+                    if (formato == FormatoArchivo.CSV && esEncabezado(linea)) {
+                        continue;
+                    }
+                }
+
+                resultado.setProcesadas(resultado.getProcesadas() + 1);
+
+                Referencia referencia;
+                try {
+                    referencia = formato == FormatoArchivo.CSV ? leerCsv(linea) : leerNdjson(linea);
+                    normalizarYValidar(referencia);
+                } catch (IllegalArgumentException e) {
+                    registrarError(resultado, numero, null, e.getMessage());
+                    continue;
+                }
+
+                if (!codigosVistos.add(referencia.getCodigo())) {
+                    registrarError(resultado, numero, referencia.getCodigo(), "El código está repetido en el archivo.");
+                    continue;
+                }
+                if (!nombresVistos.add(referencia.getNombre())) {
+                    registrarError(resultado, numero, referencia.getCodigo(), "El nombre está repetido en el archivo.");
+                    continue;
+                }
+
+                lote.add(new Fila(numero, referencia));
+                if (lote.size() == TAMANO_LOTE) {
+                    procesarLote(lote, resultado);
+                    lote.clear();
+                }
+            }
+        }
+
+        if (!lote.isEmpty()) {
+            procesarLote(lote, resultado);
+        }
+
+        //  Un solo evento con los totales (las filas quedan en la respuesta de la importación)
+        registroAuditoria.registrar(RegistroAuditoria.ENTIDAD_REFERENCIA, null, "importadas",
+                Map.of("procesadas", resultado.getProcesadas(), "insertadas", resultado.getInsertadas(),
+                        "errores", resultado.getTotalErrores()));
+        return resultado;
+    }
+
+    // ----------------------------------------------------
+    // LOTE: un INSERT con el resultado de cada fila
+    //   Duplicados: una consulta más solo si alguna fila se saltó
+    //   Otro error de datos: se reintenta fila por fila para saber cuál falla
+    // ----------------------------------------------------
+    private void procesarLote(List<Fila> lote, ResultadoImportacion resultado) {
+        Set<String> insertados;
+        try {
+            insertados = insertar(lote);
+        } catch (DataIntegrityViolationException e) {
+            procesarFilaPorFila(lote, resultado);
+            return;
+        }
+        registrarResultado(lote, insertados, resultado);
+    }
+
+    private void procesarFilaPorFila(List<Fila> lote, ResultadoImportacion resultado) {
+        List<Fila> guardadas = new ArrayList<>(lote.size());
+        Set<String> insertados = new HashSet<>();
+        for (Fila fila : lote) {
+            try {
+                insertados.addAll(insertar(List.of(fila)));
+                guardadas.add(fila);
+            } catch (DataIntegrityViolationException e) {
+                // Primera línea del error de PostgreSQL (sin el detalle con la fila completa)
+                String causa = String.valueOf(e.getMostSpecificCause().getMessage()).lines().findFirst().orElse("");
+                registrarError(resultado, fila.linea(), fila.referencia().getCodigo(),
+                        "No se pudo guardar la fila: " + causa);
+            }
+        }
+        registrarResultado(guardadas, insertados, resultado);
+    }
+
+    private Set<String> insertar(List<Fila> filas) {
+        String[] codigos = new String[filas.size()];
+        String[] nombres = new String[filas.size()];
+        Boolean[] activos = new Boolean[filas.size()];
+        for (int i = 0; i < filas.size(); i++) {
+            Referencia referencia = filas.get(i).referencia();
+            codigos[i] = referencia.getCodigo();
+            nombres[i] = referencia.getNombre();
+            activos[i] = referencia.isActivo();
+        }
+        Set<String> insertados = new HashSet<>();
+        jdbcTemplate.query(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(INSERTAR_LOTE);
+            ps.setArray(1, conexion.createArrayOf("varchar", codigos));
+            ps.setArray(2, conexion.createArrayOf("varchar", nombres));
+            ps.setArray(3, conexion.createArrayOf("boolean", activos));
+            return ps;
+        }, (ResultSet rs) -> {
+            insertados.add(rs.getString("codigo"));
+        });
+        return insertados;
+    }
+
+    //  Las filas que no volvieron en RETURNING chocaron con un código o nombre existente
+    private void registrarResultado(List<Fila> filas, Set<String> insertados, ResultadoImportacion resultado) {
+        if (!insertados.isEmpty()) {
+            resultado.setInsertadas(resultado.getInsertadas() + insertados.size());
+            cacheReferencias.listasModificadas();
+        }
+        if (insertados.size() == filas.size()) {
+            return;
+        }
+
+        List<Fila> saltadas = new ArrayList<>(filas.size() - insertados.size());
+        for (Fila fila : filas) {
+            if (!insertados.contains(fila.referencia().getCodigo())) {
+                saltadas.add(fila);
+            }
+        }
+        Set<String> codigosExistentes = new HashSet<>();
+        Set<String> nombresExistentes = new HashSet<>();
+        String[] codigos = saltadas.stream().map(f -> f.referencia().getCodigo()).toArray(String[]::new);
+        String[] nombres = saltadas.stream().map(f -> f.referencia().getNombre()).toArray(String[]::new);
+        jdbcTemplate.query(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(EXISTENTES);
+            ps.setArray(1, conexion.createArrayOf("varchar", codigos));
+            ps.setArray(2, conexion.createArrayOf("varchar", nombres));
+            return ps;
+        }, (ResultSet rs) -> {
+            codigosExistentes.add(rs.getString("codigo"));
+            nombresExistentes.add(rs.getString("nombre"));
+        });
+
+        for (Fila fila : saltadas) {
+            Referencia referencia = fila.referencia();
+            String mensaje = codigosExistentes.contains(referencia.getCodigo())
+                    ? "El código ya está registrado."
+                    : nombresExistentes.contains(referencia.getNombre())
+                    ? "El nombre ya está registrado."
+                    : "El código o el nombre ya están registrados.";
+            registrarError(resultado, fila.linea(), referencia.getCodigo(), mensaje);
+        }
+    }
+
+    // ----------------------------------------------------
+    // LECTURA DE FILAS
+    // ----------------------------------------------------
+    private boolean esEncabezado(String linea) {
+        return linea.trim().toLowerCase().startsWith("codigo");
+    }
+
+    // codigo,nombre[,activo]
+    private Referencia leerCsv(String linea) {
+        List<String> campos = FormatoCsv.separarLinea(linea);
+        if (campos.size() < 2 || campos.size() > 3) {
+            throw new IllegalArgumentException("La línea debe tener las columnas codigo,nombre[,activo].");
+        }
+        Referencia referencia = new Referencia();
+        referencia.setCodigo(campos.get(0));
+        referencia.setNombre(campos.get(1));
+        if (campos.size() == 3 && !campos.get(2).isBlank()) {
+            referencia.setActivo(leerBooleano(campos.get(2)));
+        }
+        return referencia;
+    }
+
+    // {"codigo": "...", "nombre": "...", "activo": true}
+    private Referencia leerNdjson(String linea) {
+        JsonNode nodo;
+        try {
+            nodo = objectMapper.readTree(linea);
+        } catch (IOException e) {
+            throw new IllegalArgumentException("La línea no es un JSON válido.");
+        }
+        if (nodo == null || !nodo.isObject()) {
+            throw new IllegalArgumentException("La línea debe ser un objeto JSON.");
+        }
+        Referencia referencia = new Referencia();
+        referencia.setCodigo(nodo.hasNonNull("codigo") ? nodo.get("codigo").asText() : null);
+        referencia.setNombre(nodo.hasNonNull("nombre") ? nodo.get("nombre").asText() : null);
+        if (nodo.hasNonNull("activo")) {
+            referencia.setActivo(leerBooleano(nodo.get("activo").asText()));
+        }
+        return referencia;
+    }
+
+    private boolean leerBooleano(String valor) {
+        String texto = valor.trim().toLowerCase();
+        if (texto.equals("true") || texto.equals("1") || texto.equals("si") || texto.equals("sí")) {
+            return true;
+        }
+        if (texto.equals("false") || texto.equals("0") || texto.equals("no")) {
+            return false;
+        }
+        throw new IllegalArgumentException("El valor de activo no es válido: " + valor);
+    }
+
+    // Mismas reglas que ReferenciaService.registrar
+    private void normalizarYValidar(Referencia referencia) {
+        if (referencia.getCodigo() != null) {
+            referencia.setCodigo(referencia.getCodigo().trim().toUpperCase());
+        }
+        if (referencia.getNombre() != null) {
+            referencia.setNombre(referencia.getNombre().trim());
+        }
+        ValidadorDatos.validarReferencia(referencia);
+    }
+
+    private void registrarError(ResultadoImportacion resultado, long linea, String codigo, String mensaje) {
+        resultado.setTotalErrores(resultado.getTotalErrores() + 1);
+        if (resultado.getErrores().size() < MAXIMO_ERRORES_DETALLADOS) {
+            resultado.getErrores().add(new ResultadoImportacion.ErrorFila(linea, codigo, mensaje));
+        }
+    }
+}
@@ -0,0 +1,322 @@
+package com.inventario.backend.service;
+
+import com.inventario.backend.dto.PaginaCambios;
+import com.inventario.backend.dto.ResultadoMovimientos;
+import com.inventario.backend.dto.ResultadoReconstruccion;
+import com.inventario.backend.dto.TokenCambio;
+import com.inventario.backend.exception.DatosInvalidosException;
+import com.inventario.backend.exception.StockInsuficienteException;
+import com.inventario.backend.model.Movimiento;
+import com.inventario.backend.model.Saldo;
+import com.inventario.backend.model.TipoMovimiento;
+import com.inventario.backend.repository.SaldoRepository;
+import com.inventario.backend.utils.RestriccionesBd;
+import com.inventario.backend.utils.ValidadorDatos;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+// Existencias: historial de movimientos de solo inserción y un saldo por referencia.
+// - Cada lote se guarda con una sola sentencia: INSERT de todos los movimientos (unnest de arreglos)
+//   y, en la misma sentencia, la suma por referencia sobre saldos. El CHECK cantidad >= 0 de saldos
+//   hace fallar el lote completo si alguna salida deja el stock negativo.
+// - Consultar el stock es leer una fila de saldos por clave, sin sumar el historial.
+// - reconstruirSaldos recalcula los saldos desde el historial por rangos de referencias en paralelo.
+@Service
+public class InventarioService {
+
+    private static final int MAXIMO_LOTE = 1000;
+    private static final int TAMANO_HISTORIAL_DEFECTO = 100;
+    private static final int TAMANO_HISTORIAL_MAXIMO = 1000;
+
+    private static final String REFERENCIAS_ACTIVAS =
+            "SELECT id_referencia FROM referencias WHERE id_referencia = ANY(?) AND activo";
+
+    // Los saldos se actualizan en orden de referencia: dos lotes concurrentes bloquean las filas
+    // en el mismo orden y no pueden interbloquearse
+    private static final String REGISTRAR =
+            "WITH nuevos AS ("
+                    + " INSERT INTO movimientos (id_referencia, id_usuario, tipo, cantidad, observacion)"
+                    + " SELECT * FROM unnest(?::bigint[], ?::bigint[], ?::varchar[], ?::bigint[], ?::varchar[])"
+                    + " RETURNING id_movimiento, id_referencia, id_usuario, tipo, cantidad, observacion, fecha, transaccion"
+                    + "), suma AS ("
+                    + " INSERT INTO saldos AS s (id_referencia, cantidad, id_ultimo_movimiento)"
+                    + " SELECT id_referencia, SUM(cantidad), MAX(id_movimiento) FROM nuevos"
+                    + " GROUP BY id_referencia ORDER BY id_referencia"
+                    + " ON CONFLICT (id_referencia) DO UPDATE"
+                    + " SET cantidad = s.cantidad + EXCLUDED.cantidad,"
+                    + " id_ultimo_movimiento = GREATEST(s.id_ultimo_movimiento, EXCLUDED.id_ultimo_movimiento),"
+                    + " actualizado = now()"
+                    + " RETURNING id_referencia, cantidad, id_ultimo_movimiento, actualizado"
+                    + ")"
+                    + " SELECT n.id_movimiento, n.id_referencia, n.id_usuario, n.tipo, n.cantidad, n.observacion, n.fecha,"
+                    + " n.transaccion,"
+                    + " s.cantidad AS saldo, s.id_ultimo_movimiento, s.actualizado"
+                    + " FROM nuevos n JOIN suma s ON s.id_referencia = n.id_referencia"
+                    + " ORDER BY n.id_movimiento";
+
+    // Historial después del token, solo de transacciones ya terminadas (V12, mismo horizonte que /changes)
+    private static final String HISTORIAL =
+            "SELECT id_movimiento, id_referencia, id_usuario, tipo, cantidad, observacion, fecha, transaccion"
+                    + " FROM movimientos"
+                    + " WHERE id_referencia = ? AND (transaccion, id_movimiento) > (?, ?)"
+                    + " AND transaccion < pg_snapshot_xmin(pg_current_snapshot())::text::bigint"
+                    + " ORDER BY transaccion, id_movimiento LIMIT ?";
+
+    // ----- Reconstrucción -----
+    private static final String RANGO =
+            "SELECT MIN(id), MAX(id) FROM ("
+                    + " SELECT MIN(id_referencia) AS id FROM movimientos UNION ALL"
+                    + " SELECT MAX(id_referencia) FROM movimientos UNION ALL"
+                    + " SELECT MIN(id_referencia) FROM saldos UNION ALL"
+                    + " SELECT MAX(id_referencia) FROM saldos) extremos";
+
+    // SHARE deja correr las demás particiones pero detiene los INSERT hasta el COMMIT:
+    // ningún movimiento nuevo queda fuera de la suma ni se pierde al sobrescribir el saldo
+    private static final String BLOQUEAR = "LOCK TABLE movimientos IN SHARE MODE";
+
+    // Solo se escriben los saldos que no coinciden con el historial
+    private static final String RECALCULAR =
+            "INSERT INTO saldos AS s (id_referencia, cantidad, id_ultimo_movimiento)"
+                    + " SELECT id_referencia, SUM(cantidad), MAX(id_movimiento) FROM movimientos"
+                    + " WHERE id_referencia BETWEEN ? AND ? GROUP BY id_referencia"
+                    + " ON CONFLICT (id_referencia) DO UPDATE"
+                    + " SET cantidad = EXCLUDED.cantidad, id_ultimo_movimiento = EXCLUDED.id_ultimo_movimiento,"
+                    + " actualizado = now()"
+                    + " WHERE (s.cantidad, s.id_ultimo_movimiento)"
+                    + " IS DISTINCT FROM (EXCLUDED.cantidad, EXCLUDED.id_ultimo_movimiento)";
+
+    private static final String ELIMINAR_SIN_MOVIMIENTOS =
+            "DELETE FROM saldos s WHERE s.id_referencia BETWEEN ? AND ?"
+                    + " AND NOT EXISTS (SELECT 1 FROM movimientos m WHERE m.id_referencia = s.id_referencia)";
+
+    @Autowired
+    private SaldoRepository saldoRepository;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private TransactionTemplate transactionTemplate;
+
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor executorTareas;
+
+    // Cada partición ocupa una conexión mientras dura: no superar el pool de Hikari
+    @Value("${inventario.saldos.hilos:4}")
+    private int hilosReconstruccion;
+
+    // ----------------------------------------------------
+    // REGISTRAR MOVIMIENTOS (un lote = una sentencia, todo o nada)
+    // ----------------------------------------------------
+    public ResultadoMovimientos registrar(List<Movimiento> movimientos, Long idUsuario) {
+        if (movimientos == null || movimientos.isEmpty()) {
+            throw new IllegalArgumentException("Debe enviar al menos un movimiento.");
+        }
+        if (movimientos.size() > MAXIMO_LOTE) {
+            throw new IllegalArgumentException("Máximo " + MAXIMO_LOTE + " movimientos por lote.");
+        }
+
+        int total = movimientos.size();
+        Long[] referencias = new Long[total];
+        Long[] usuarios = new Long[total];
+        String[] tipos = new String[total];
+        Long[] cantidades = new Long[total];
+        String[] observaciones = new String[total];
+        Map<Long, Long> diferencias = new LinkedHashMap<>();
+
+        for (int i = 0; i < total; i++) {
+            Movimiento movimiento = movimientos.get(i);
+            try {
+                ValidadorDatos.validarMovimiento(movimiento);
+            } catch (DatosInvalidosException e) {
+                throw e.enElemento(i, "Movimiento");
+            } catch (IllegalArgumentException e) {
+                throw new IllegalArgumentException("Movimiento " + (i + 1) + ": " + e.getMessage());
+            }
+            long cantidad = movimiento.getTipo() == TipoMovimiento.SALIDA
+                    ? -movimiento.getCantidad()
+                    : movimiento.getCantidad();
+
+            referencias[i] = movimiento.getIdReferencia();
+            usuarios[i] = idUsuario;
+            tipos[i] = movimiento.getTipo().name();
+            cantidades[i] = cantidad;
+            observaciones[i] = movimiento.getObservacion();
+            diferencias.merge(movimiento.getIdReferencia(), cantidad, Long::sum);
+        }
+
+        //  Referencias inexistentes o inactivas: una consulta para todo el lote
+        Long[] distintas = diferencias.keySet().toArray(Long[]::new);
+        Set<Long> activas = new HashSet<>();
+        jdbcTemplate.query(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(REFERENCIAS_ACTIVAS);
+            ps.setArray(1, conexion.createArrayOf("bigint", distintas));
+            return ps;
+        }, (ResultSet rs) -> {
+            activas.add(rs.getLong(1));
+        });
+        for (Long idReferencia : distintas) {
+            if (!activas.contains(idReferencia)) {
+                throw new IllegalArgumentException("La referencia " + idReferencia + " no existe o está inactiva.");
+            }
+        }
+
+        ResultadoMovimientos resultado = new ResultadoMovimientos();
+        Map<Long, Saldo> saldos = new LinkedHashMap<>();
+        try {
+            jdbcTemplate.query(conexion -> {
+                PreparedStatement ps = conexion.prepareStatement(REGISTRAR);
+                ps.setArray(1, conexion.createArrayOf("bigint", referencias));
+                ps.setArray(2, conexion.createArrayOf("bigint", usuarios));
+                ps.setArray(3, conexion.createArrayOf("varchar", tipos));
+                ps.setArray(4, conexion.createArrayOf("bigint", cantidades));
+                ps.setArray(5, conexion.createArrayOf("varchar", observaciones));
+                return ps;
+            }, (ResultSet rs) -> {
+                resultado.getMovimientos().add(mapearMovimiento(rs));
+                long idReferencia = rs.getLong("id_referencia");
+                if (!saldos.containsKey(idReferencia)) {
+                    saldos.put(idReferencia, new Saldo(idReferencia, rs.getLong("saldo"),
+                            rs.getLong("id_ultimo_movimiento"), rs.getTimestamp("actualizado").toInstant()));
+                }
+            });
+        } catch (DataIntegrityViolationException e) {
+            // Solo el CHECK de saldo negativo es falta de stock; cualquier otra violación sigue su curso
+            if (!RestriccionesBd.SALDOS_CANTIDAD.equals(RestriccionesBd.violada(e))) {
+                throw e;
+            }
+            // Solo en el caso de error se consulta qué referencias quedarían en negativo
+            throw new StockInsuficienteException(referenciasSinStock(diferencias));
+        }
+
+        resultado.getSaldos().addAll(saldos.values());
+        return resultado;
+    }
+
+    private List<Long> referenciasSinStock(Map<Long, Long> diferencias) {
+        Map<Long, Long> actuales = new HashMap<>();
+        for (Saldo saldo : saldoRepository.findByIdReferenciaIn(diferencias.keySet())) {
+            actuales.put(saldo.getIdReferencia(), saldo.getCantidad());
+        }
+        List<Long> sinStock = new ArrayList<>();
+        diferencias.forEach((idReferencia, diferencia) -> {
+            if (actuales.getOrDefault(idReferencia, 0L) + diferencia < 0) {
+                sinStock.add(idReferencia);
+            }
+        });
+        return sinStock;
+    }
+
+    // ----------------------------------------------------
+    // CONSULTAS
+    // ----------------------------------------------------
+
+    //  Stock actual de una referencia (sin movimientos = sin fila = 0)
+    @Transactional(readOnly = true)
+    public Saldo obtenerSaldo(Long idReferencia) {
+        Optional<Saldo> saldo = saldoRepository.findById(idReferencia);
+        return saldo.orElseGet(() -> new Saldo(idReferencia, 0L, 0L, null));
+    }
+
+    @Transactional(readOnly = true)
+    public List<Saldo> obtenerSaldos(List<Long> idsReferencia) {
+        if (idsReferencia == null || idsReferencia.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos una referencia.");
+        }
+        if (idsReferencia.size() > MAXIMO_LOTE) {
+            throw new IllegalArgumentException("Máximo " + MAXIMO_LOTE + " referencias por consulta.");
+        }
+        return saldoRepository.findByIdReferenciaIn(idsReferencia);
+    }
+
+    //  Historial de una referencia: /movimientos?referencia=<id>&since=<token>&tamano=100
+    @Transactional(readOnly = true)
+    public PaginaCambios<Movimiento> obtenerHistorial(Long idReferencia, String desde, Integer tamano) {
+        TokenCambio token = TokenCambio.leer(desde);
+        int limite = (tamano == null || tamano <= 0)
+                ? TAMANO_HISTORIAL_DEFECTO
+                : Math.min(tamano, TAMANO_HISTORIAL_MAXIMO);
+
+        List<Movimiento> filas = jdbcTemplate.query(HISTORIAL, (rs, n) -> mapearMovimiento(rs),
+                idReferencia, token.transaccion(), token.secuencia(), limite + 1);
+        return PaginaCambios.de(filas, limite, token, Movimiento::tokenCambio);
+    }
+
+    private static Movimiento mapearMovimiento(ResultSet rs) throws SQLException {
+        return new Movimiento(
+                rs.getLong("id_movimiento"), rs.getLong("id_referencia"), rs.getLong("id_usuario"),
+                TipoMovimiento.valueOf(rs.getString("tipo")), rs.getLong("cantidad"),
+                rs.getString("observacion"), rs.getTimestamp("fecha").toInstant(), rs.getLong("transaccion"));
+    }
+
+    // ----------------------------------------------------
+    // RECONSTRUIR SALDOS (rangos de referencias en paralelo, una transacción por rango)
+    // ----------------------------------------------------
+    public CompletableFuture<ResultadoReconstruccion> reconstruirSaldos() {
+        long inicio = System.nanoTime();
+
+        long[] extremos = jdbcTemplate.queryForObject(RANGO, (rs, n) -> rs.getObject(1) == null
+                ? null
+                : new long[] { rs.getLong(1), rs.getLong(2) });
+        if (extremos == null) {
+            return CompletableFuture.completedFuture(new ResultadoReconstruccion(0, 0, 0, 0));
+        }
+
+        long minimo = extremos[0];
+        long maximo = extremos[1];
+        int particiones = (int) Math.max(1, Math.min(hilosReconstruccion, maximo - minimo + 1));
+        long tamano = (maximo - minimo + particiones) / particiones;
+
+        List<CompletableFuture<long[]>> tareas = new ArrayList<>(particiones);
+        for (int k = 0; k < particiones; k++) {
+            long desde = minimo + k * tamano;
+            long hasta = Math.min(maximo, desde + tamano - 1);
+            tareas.add(CompletableFuture.supplyAsync(() -> reconstruirRango(desde, hasta), executorTareas));
+        }
+
+        return CompletableFuture.allOf(tareas.toArray(CompletableFuture[]::new))
+                .thenApply(sinValor -> {
+                    long corregidos = 0;
+                    long eliminados = 0;
+                    for (CompletableFuture<long[]> tarea : tareas) {
+                        long[] cuenta = tarea.join();
+                        corregidos += cuenta[0];
+                        eliminados += cuenta[1];
+                    }
+                    return new ResultadoReconstruccion(particiones, corregidos, eliminados,
+                            TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - inicio));
+                });
+    }
+
+    private long[] reconstruirRango(long desde, long hasta) {
+        return transactionTemplate.execute(estado -> {
+            jdbcTemplate.execute(BLOQUEAR);
+            int corregidos = jdbcTemplate.update(RECALCULAR, desde, hasta);
+            int eliminados = jdbcTemplate.update(ELIMINAR_SIN_MOVIMIENTOS, desde, hasta);
+            return new long[] { corregidos, eliminados };
+        });
+    }
+}
@@ -0,0 +1,100 @@
+package com.inventario.backend.service;
+
+import com.inventario.backend.dto.EventoOutbox;
+import com.inventario.backend.dto.PaginaCambios;
+import com.inventario.backend.dto.TokenCambio;
+
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.util.List;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+// Lectura de la bandeja de salida. Los eventos los escriben los disparadores de V8 en la misma
+// transacción que el cambio; los consumidores los piden por lotes con since=<token>, igual que /changes.
+// Los eventos con más de inventario.outbox.dias se borran cada hora, por tandas cortas
+// para no bloquear la tabla: un consumidor detenido más tiempo debe resincronizar con /changes.
+@Service
+public class OutboxService {
+
+    private static final Logger log = LoggerFactory.getLogger(OutboxService.class);
+
+    private static final int TAMANO_DEFECTO = 500;
+    private static final int TAMANO_MAXIMO = 2000;
+    private static final int TANDA_LIMPIEZA = 10_000;
+
+    private static final String PAGINA =
+            "SELECT secuencia, transaccion, fecha, agregado, id_agregado, tipo, carga FROM outbox " +
+            "WHERE (transaccion, secuencia) > (?, ?) " +
+            "AND transaccion < pg_snapshot_xmin(pg_current_snapshot())::text::bigint " +
+            "ORDER BY transaccion, secuencia LIMIT ?";
+
+    private static final String LIMPIAR =
+            "DELETE FROM outbox WHERE secuencia IN (" +
+            "SELECT secuencia FROM outbox WHERE fecha < now() - make_interval(days => ?) " +
+            "ORDER BY secuencia LIMIT ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final int dias;
+    private final ScheduledThreadPoolExecutor executor;
+
+    public OutboxService(JdbcTemplate jdbcTemplate,
+                         @Value("${inventario.outbox.dias:7}") int dias) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.dias = dias;
+        this.executor = new ScheduledThreadPoolExecutor(1, tarea -> {
+            Thread hilo = new Thread(tarea, "outbox-limpieza");
+            hilo.setDaemon(true);
+            return hilo;
+        });
+        executor.scheduleWithFixedDelay(this::limpiar, 1, 60, TimeUnit.MINUTES);
+    }
+
+    // ----------------------------------------------------
+    // EVENTOS DESPUÉS DEL TOKEN (solo de transacciones ya terminadas, V11)
+    // ----------------------------------------------------
+    @Transactional(readOnly = true)
+    public PaginaCambios<EventoOutbox> obtenerEventos(String desde, Integer tamano) {
+        TokenCambio token = TokenCambio.leer(desde);
+        int limite = (tamano == null || tamano <= 0) ? TAMANO_DEFECTO : Math.min(tamano, TAMANO_MAXIMO);
+
+        List<EventoOutbox> filas = jdbcTemplate.query(PAGINA, (rs, n) -> new EventoOutbox(
+                rs.getLong("secuencia"),
+                rs.getLong("transaccion"),
+                rs.getTimestamp("fecha").toInstant(),
+                rs.getString("agregado"),
+                rs.getLong("id_agregado"),
+                rs.getString("tipo"),
+                rs.getString("carga")), token.transaccion(), token.secuencia(), limite + 1);
+        return PaginaCambios.de(filas, limite, token, EventoOutbox::tokenCambio);
+    }
+
+    // ----------------------------------------------------
+    // RETENCIÓN (0 = conservar todo)
+    // ----------------------------------------------------
+    private void limpiar() {
+        if (dias <= 0) {
+            return;
+        }
+        try {
+            int borrados;
+            do {
+                borrados = jdbcTemplate.update(LIMPIAR, dias, TANDA_LIMPIEZA);
+            } while (borrados == TANDA_LIMPIEZA);
+        } catch (RuntimeException e) {
+            // Se reintenta en la siguiente hora; una excepción cancelaría la tarea periódica
+            log.error("No se pudieron borrar los eventos vencidos de outbox", e);
+        }
+    }
+
+    @PreDestroy
+    public void detener() {
+        executor.shutdownNow();
+    }
+}
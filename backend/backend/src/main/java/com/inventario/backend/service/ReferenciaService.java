@@ -1,145 +1,466 @@
 package com.inventario.backend.service;
 
+import com.inventario.backend.dto.PaginaCambios;
+import com.inventario.backend.dto.PaginaReferencias;
+import com.inventario.backend.dto.ReferenciaPublica;
+import com.inventario.backend.dto.TokenCambio;
+import com.inventario.backend.exception.RegistroDuplicadoException;
+import com.inventario.backend.exception.VersionObsoletaException;
 import com.inventario.backend.model.Referencia;
 import com.inventario.backend.repository.ReferenciaRepository;
+import com.inventario.backend.utils.RestriccionesBd;
 import com.inventario.backend.utils.ValidadorDatos;
 
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.jdbc.support.GeneratedKeyHolder;
+import org.springframework.jdbc.support.KeyHolder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.nio.charset.StandardCharsets;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.sql.Types;
+import java.util.ArrayList;
+import java.util.Base64;
 import java.util.List;
 
+// Las lecturas corren en transacciones de solo lectura: Hibernate no guarda
+// copias de las entidades para dirty checking ni hace flush al terminar.
 @Service
 public class ReferenciaService {
 
+    private static final int TAMANO_PAGINA_DEFECTO = 50;
+    private static final int TAMANO_PAGINA_MAXIMO = 200;
+    private static final int TAMANO_BUSQUEDA_DEFECTO = 20;
+    private static final int TAMANO_CAMBIOS_DEFECTO = 500;
+    private static final int TAMANO_CAMBIOS_MAXIMO = 2000;
+
+    private static final String INSERTAR =
+            "INSERT INTO referencias (codigo, nombre, activo) VALUES (?, ?, ?)";
+
+    // La CTE bloquea la fila y conserva el código y el estado previos.
+    // Solo escribe si la versión coincide (cuando se pide) y si algún dato cambia.
+    private static final String ACTUALIZAR =
+            "WITH anterior AS ("
+                    + " SELECT id_referencia, codigo, activo FROM referencias WHERE id_referencia = ? FOR UPDATE)"
+                    + " UPDATE referencias r SET codigo = ?, nombre = ?, activo = ?, version = r.version + 1"
+                    + " FROM anterior WHERE r.id_referencia = anterior.id_referencia"
+                    + " AND (CAST(? AS BIGINT) IS NULL OR r.version = ?)"
+                    + " AND (r.codigo, r.nombre, r.activo) IS DISTINCT FROM (?, ?, ?)"
+                    + " RETURNING r.id_referencia, r.codigo, r.nombre, r.activo, r.version,"
+                    + " anterior.codigo AS codigo_anterior, anterior.activo AS activo_anterior";
+
+    // Búsqueda con relevancia sobre las columnas normalizadas de V9: 0 código exacto,
+    // 1 prefijo de código, 2 prefijo de nombre, 3 subcadena en código o nombre (desde 3 caracteres).
+    // Cada rama lee pocas filas de su índice; una fila puede salir en varias y DISTINCT ON deja
+    // su mejor nivel (por eso las ramas 2 y 3 piden el doble). El texto se normaliza en la
+    // sentencia con la misma función de las columnas (IMMUTABLE: se evalúa al planificar).
+    private static final String BUSCAR =
+            "SELECT id_referencia, codigo, nombre, activo, version FROM ("
+                    + " SELECT DISTINCT ON (id_referencia) * FROM ("
+                    + "  (SELECT id_referencia, codigo, nombre, activo, version,"
+                    + "    CASE WHEN busqueda_codigo = normalizar_busqueda(:texto) THEN 0 ELSE 1 END AS nivel"
+                    + "   FROM referencias"
+                    + "   WHERE busqueda_codigo COLLATE \"C\" LIKE normalizar_busqueda(:patron) || '%'"
+                    + "   AND (CAST(:activo AS BOOLEAN) IS NULL OR activo = :activo)"
+                    + "   ORDER BY busqueda_codigo COLLATE \"C\" LIMIT :limite)"
+                    + "  UNION ALL"
+                    + "  (SELECT id_referencia, codigo, nombre, activo, version, 2 FROM referencias"
+                    + "   WHERE busqueda_nombre COLLATE \"C\" LIKE normalizar_busqueda(:patron) || '%'"
+                    + "   AND (CAST(:activo AS BOOLEAN) IS NULL OR activo = :activo)"
+                    + "   ORDER BY busqueda_nombre COLLATE \"C\" LIMIT 2 * :limite)"
+                    + "  UNION ALL"
+                    + "  (SELECT id_referencia, codigo, nombre, activo, version, 3 FROM referencias"
+                    + "   WHERE CAST(:subcadenas AS BOOLEAN)"
+                    + "   AND (busqueda_codigo LIKE '%' || normalizar_busqueda(:patron) || '%'"
+                    + "    OR busqueda_nombre LIKE '%' || normalizar_busqueda(:patron) || '%')"
+                    + "   AND (CAST(:activo AS BOOLEAN) IS NULL OR activo = :activo)"
+                    + "   LIMIT 2 * :limite)"
+                    + " ) candidatas ORDER BY id_referencia, nivel"
+                    + ") encontradas"
+                    + " ORDER BY nivel, length(nombre), normalizar_busqueda(nombre) COLLATE \"C\", id_referencia"
+                    + " LIMIT :limite";
+
+    // Cambios después del token, solo de transacciones ya terminadas (V11)
+    private static final String CAMBIOS =
+            "SELECT id_referencia, codigo, nombre, activo, version, secuencia_cambio, transaccion_cambio"
+                    + " FROM referencias"
+                    + " WHERE (transaccion_cambio, secuencia_cambio) > (?, ?)"
+                    + " AND transaccion_cambio < pg_snapshot_xmin(pg_current_snapshot())::text::bigint"
+                    + " ORDER BY transaccion_cambio, secuencia_cambio LIMIT ?";
+
+    private static final String DESACTIVAR =
+            "UPDATE referencias SET activo = false, version = version + 1"
+                    + " WHERE id_referencia = ? AND activo = true"
+                    + " RETURNING id_referencia, codigo, nombre, activo, version";
+
     @Autowired
     private ReferenciaRepository referenciaRepository;
 
-    // ----------------------------------------------------
-    // VALIDAR FORMATO DE CÓDIGO (RF + números)
-    // ----------------------------------------------------
-    private void validarCodigoRF(String codigo) {
-        if (codigo == null || !codigo.matches("^RF\\d+$")) {
-            throw new IllegalArgumentException(
-                "El código debe iniciar con 'RF' seguido únicamente de números. Ejemplos válidos: RF1, RF05, RF100."
-            );
-        }
+    @Autowired
+    private CacheReferencias cacheReferencias;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private NamedParameterJdbcTemplate namedJdbcTemplate;
+
+    @Autowired
+    private DifusionCambios difusionCambios;
+
+    @Autowired
+    private RegistroAuditoria registroAuditoria;
+
+    private record Actualizada(Referencia referencia, String codigoAnterior, boolean activoAnterior) {
     }
 
     // ----------------------------------------------------
     // REGISTRAR REFERENCIA
+    //   Un solo INSERT; la unicidad la garantizan las restricciones de la tabla
     // ----------------------------------------------------
     public Referencia registrar(Referencia referencia) {
 
         referencia.setCodigo(referencia.getCodigo().trim().toUpperCase());
         referencia.setNombre(referencia.getNombre().trim());
 
-        validarCodigoRF(referencia.getCodigo());
         ValidadorDatos.validarReferencia(referencia);
 
-        if (referenciaRepository.findByCodigo(referencia.getCodigo()).isPresent()) {
-            throw new IllegalArgumentException("El código ya está registrado.");
-        }
-
-        if (referenciaRepository.findByNombre(referencia.getNombre()).isPresent()) {
-            throw new IllegalArgumentException("El nombre ya está registrado.");
+        KeyHolder claves = new GeneratedKeyHolder();
+        try {
+            jdbcTemplate.update(conexion -> {
+                PreparedStatement ps = conexion.prepareStatement(INSERTAR, new String[]{"id_referencia"});
+                ps.setString(1, referencia.getCodigo());
+                ps.setString(2, referencia.getNombre());
+                ps.setBoolean(3, referencia.isActivo());
+                return ps;
+            }, claves);
+        } catch (DuplicateKeyException e) {
+            throw conflicto(e, "El código ya está registrado.", "El nombre ya está registrado.");
         }
 
-        return referenciaRepository.save(referencia);
+        // version arranca en 0 (valor por defecto de la columna)
+        Referencia guardada = new Referencia(claves.getKey().longValue(),
+                referencia.getCodigo(), referencia.getNombre(), referencia.isActivo(), 0L, null, null);
+        cacheReferencias.guardada(guardada, null, null);
+        difusionCambios.publicar(DifusionCambios.CANAL_REFERENCIAS, "registrada", guardada);
+        registroAuditoria.registrar(RegistroAuditoria.ENTIDAD_REFERENCIA, guardada.getIdReferencia(), "registrada", guardada);
+        return guardada;
     }
 
     // ----------------------------------------------------
     // OBTENER SOLO ACTIVAS
     // ----------------------------------------------------
-    public List<Referencia> obtenerActivas() {
-        return referenciaRepository.findByActivoTrue();
+    @Transactional(readOnly = true)
+    public List<ReferenciaPublica> obtenerActivas() {
+        return obtenerPorEstado(true);
     }
 
     // ----------------------------------------------------
     // OBTENER SOLO INACTIVAS
     // ----------------------------------------------------
-    public List<Referencia> obtenerInactivas() {
-        return referenciaRepository.findByActivoFalse();
+    @Transactional(readOnly = true)
+    public List<ReferenciaPublica> obtenerInactivas() {
+        return obtenerPorEstado(false);
     }
 
     // ----------------------------------------------------
     // OBTENER TODAS (ACTIVAS + INACTIVAS)
     // ----------------------------------------------------
-    public List<Referencia> obtenerTodas() {
-        return referenciaRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<ReferenciaPublica> obtenerTodas() {
+        return referenciaRepository.findAllProjectedBy();
     }
 
     // ----------------------------------------------------
     // OBTENER POR ID
     // ----------------------------------------------------
-    public Referencia obtenerPorId(Long id) {
-        return referenciaRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Referencia no encontrada."));
+    @Transactional(readOnly = true)
+    public ReferenciaPublica obtenerPorId(Long id) {
+        ReferenciaPublica referencia = cacheReferencias.porId(id,
+                () -> referenciaRepository.findProjectedByIdReferencia(id).orElse(null));
+        if (referencia == null) {
+            throw new IllegalArgumentException("Referencia no encontrada.");
+        }
+        return referencia;
     }
 
     // ----------------------------------------------------
     // ACTUALIZAR REFERENCIA
+    //   Un solo UPDATE ... RETURNING con los valores anteriores para la caché.
+    //   versionEsperada (If-Match) es opcional: null = sin control de versión
     // ----------------------------------------------------
-    public Referencia actualizar(Long id, Referencia nuevosDatos) {
-
-        Referencia referencia = referenciaRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("Referencia no encontrada."));
+    public Referencia actualizar(Long id, Referencia nuevosDatos, Long versionEsperada) {
 
         nuevosDatos.setCodigo(nuevosDatos.getCodigo().trim().toUpperCase());
         nuevosDatos.setNombre(nuevosDatos.getNombre().trim());
 
-        validarCodigoRF(nuevosDatos.getCodigo());
         ValidadorDatos.validarReferencia(nuevosDatos);
 
-        referenciaRepository.findByCodigo(nuevosDatos.getCodigo())
-                .ifPresent(r -> {
-                    if (!r.getIdReferencia().equals(id)) {
-                        throw new IllegalArgumentException("El código ya existe en otra referencia.");
-                    }
-                });
-
-        referenciaRepository.findByNombre(nuevosDatos.getNombre())
-                .ifPresent(r -> {
-                    if (!r.getIdReferencia().equals(id)) {
-                        throw new IllegalArgumentException("El nombre ya existe en otra referencia.");
-                    }
-                });
+        List<Actualizada> filas;
+        try {
+            filas = jdbcTemplate.query(ACTUALIZAR, (rs, n) -> new Actualizada(
+                            mapear(rs), rs.getString("codigo_anterior"), rs.getBoolean("activo_anterior")),
+                    id, nuevosDatos.getCodigo(), nuevosDatos.getNombre(), nuevosDatos.isActivo(),
+                    versionEsperada, versionEsperada,
+                    nuevosDatos.getCodigo(), nuevosDatos.getNombre(), nuevosDatos.isActivo());
+        } catch (DuplicateKeyException e) {
+            throw conflicto(e, "El código ya existe en otra referencia.", "El nombre ya existe en otra referencia.");
+        }
 
-        referencia.setCodigo(nuevosDatos.getCodigo());
-        referencia.setNombre(nuevosDatos.getNombre());
-        referencia.setActivo(nuevosDatos.isActivo());
+        if (filas.isEmpty()) {
+            // No se escribió nada: no existe, la versión no coincide o los datos son los mismos
+            Referencia actual = referenciaRepository.findById(id)
+                    .orElseThrow(() -> new IllegalArgumentException("Referencia no encontrada."));
+            if (versionEsperada != null && !versionEsperada.equals(actual.getVersion())) {
+                throw new VersionObsoletaException("La referencia fue modificada por otro usuario.");
+            }
+            return actual;
+        }
 
-        return referenciaRepository.save(referencia);
+        Actualizada fila = filas.get(0);
+        cacheReferencias.guardada(fila.referencia(), fila.codigoAnterior(), fila.activoAnterior());
+        difusionCambios.publicar(DifusionCambios.CANAL_REFERENCIAS, "actualizada", fila.referencia());
+        registroAuditoria.registrar(RegistroAuditoria.ENTIDAD_REFERENCIA, id, "actualizada", fila.referencia());
+        return fila.referencia();
     }
 
     // ----------------------------------------------------
     // ELIMINAR (LÓGICO)
+    //   UPDATE condicionado a activo = true: dos eliminaciones simultáneas no se pisan
     // ----------------------------------------------------
     public void eliminar(Long id) {
 
-        Referencia referencia = referenciaRepository.findById(id)
-                .orElseThrow(() -> new IllegalArgumentException("La referencia no existe."));
+        List<Referencia> filas = jdbcTemplate.query(DESACTIVAR, (rs, n) -> mapear(rs), id);
 
-        if (!referencia.isActivo()) {
+        if (filas.isEmpty()) {
+            // Solo en el caso de error se consulta el motivo
+            if (!referenciaRepository.existsById(id)) {
+                throw new IllegalArgumentException("La referencia no existe.");
+            }
             throw new IllegalArgumentException("La referencia ya está eliminada.");
         }
 
-        referencia.setActivo(false);
-        referenciaRepository.save(referencia);
+        Referencia guardada = filas.get(0);
+        cacheReferencias.guardada(guardada, guardada.getCodigo(), true);
+        difusionCambios.publicar(DifusionCambios.CANAL_REFERENCIAS, "eliminada", guardada);
+        registroAuditoria.registrar(RegistroAuditoria.ENTIDAD_REFERENCIA, id, "eliminada", guardada);
     }
 
     // ----------------------------------------------------
     // OBTENER POR CÓDIGO
     // ----------------------------------------------------
-    public Referencia obtenerPorCodigo(String codigo) {
-        return referenciaRepository.findByCodigo(codigo)
-                .orElseThrow(() -> new IllegalArgumentException("Referencia no encontrada."));
+    @Transactional(readOnly = true)
+    public ReferenciaPublica obtenerPorCodigo(String codigo) {
+        ReferenciaPublica referencia = cacheReferencias.porCodigo(codigo,
+                () -> referenciaRepository.findProjectedByCodigo(codigo).orElse(null));
+        if (referencia == null) {
+            throw new IllegalArgumentException("Referencia no encontrada.");
+        }
+        return referencia;
     }
 
     // ----------------------------------------------------
     // OBTENER POR ESTADO
     // ----------------------------------------------------
-    public List<Referencia> obtenerPorEstado(boolean activo) {
-        return referenciaRepository.findByActivo(activo);
+    @Transactional(readOnly = true)
+    public List<ReferenciaPublica> obtenerPorEstado(boolean activo) {
+        return cacheReferencias.porEstado(activo, () -> referenciaRepository.findProjectedByActivo(activo));
+    }
+
+    // ----------------------------------------------------
+    // BÚSQUEDA POR PREFIJO / SUBCADENA (sin tildes ni mayúsculas)
+    // ----------------------------------------------------
+    @Transactional(readOnly = true)
+    public List<Referencia> buscar(String texto, Boolean activo, Integer limite) {
+        int maximo = (limite == null || limite <= 0)
+                ? TAMANO_BUSQUEDA_DEFECTO
+                : Math.min(limite, TAMANO_PAGINA_MAXIMO);
+        String consulta = texto == null ? "" : texto.trim();
+        if (consulta.isEmpty()) {
+            return List.of();
+        }
+
+        MapSqlParameterSource parametros = new MapSqlParameterSource()
+                .addValue("texto", consulta)
+                .addValue("patron", escaparLike(consulta))
+                .addValue("activo", activo, Types.BOOLEAN)
+                .addValue("subcadenas", consulta.length() >= 3)
+                .addValue("limite", maximo);
+        return namedJdbcTemplate.query(BUSCAR, parametros, (rs, n) -> mapear(rs));
+    }
+
+    // ----------------------------------------------------
+    // CAMBIOS DESDE UN TOKEN (sincronización incremental)
+    //   Las eliminaciones lógicas llegan como filas con activo = false
+    // ----------------------------------------------------
+    @Transactional(readOnly = true)
+    public PaginaCambios<Referencia> obtenerCambios(String desde, Integer tamano) {
+        TokenCambio token = TokenCambio.leer(desde);
+        int limite = (tamano == null || tamano <= 0)
+                ? TAMANO_CAMBIOS_DEFECTO
+                : Math.min(tamano, TAMANO_CAMBIOS_MAXIMO);
+
+        List<Referencia> filas = jdbcTemplate.query(CAMBIOS, (rs, n) -> mapearCambio(rs),
+                token.transaccion(), token.secuencia(), limite + 1);
+        return PaginaCambios.de(filas, limite, token,
+                r -> TokenCambio.de(r.getTransaccionCambio(), r.getSecuenciaCambio()));
+    }
+
+    // ----------------------------------------------------
+    // LISTADO PAGINADO (KEYSET)
+    //   orden: id | codigo | nombre
+    //   cursor: valor opaco devuelto en la página anterior
+    // ----------------------------------------------------
+    @Transactional(readOnly = true)
+    public PaginaReferencias obtenerPagina(Boolean activo, String prefijo, String orden,
+                                           String cursor, Integer tamano) {
+
+        String campo = normalizarOrden(orden);
+        int limite = (tamano == null || tamano <= 0)
+                ? TAMANO_PAGINA_DEFECTO
+                : Math.min(tamano, TAMANO_PAGINA_MAXIMO);
+
+        Specification<Referencia> filtro = Specification.allOf(
+                porEstado(activo),
+                porPrefijo(prefijo),
+                despuesDe(campo, decodificarCursor(campo, cursor)));
+
+        // Se pide un elemento de más para saber si existe otra página sin hacer COUNT
+        List<Referencia> resultado = referenciaRepository.findBy(filtro, q -> q
+                .sortBy(Sort.by(Sort.Direction.ASC, campo))
+                .limit(limite + 1)
+                .all());
+
+        if (resultado.size() <= limite) {
+            return new PaginaReferencias(resultado, null);
+        }
+
+        List<Referencia> elementos = new ArrayList<>(resultado.subList(0, limite));
+        Referencia ultima = elementos.get(limite - 1);
+        return new PaginaReferencias(elementos, codificarCursor(campo, valorDeOrden(campo, ultima)));
+    }
+
+    private static Referencia mapear(ResultSet rs) throws SQLException {
+        return new Referencia(rs.getLong("id_referencia"), rs.getString("codigo"),
+                rs.getString("nombre"), rs.getBoolean("activo"), rs.getLong("version"), null, null);
+    }
+
+    private static Referencia mapearCambio(ResultSet rs) throws SQLException {
+        return new Referencia(rs.getLong("id_referencia"), rs.getString("codigo"),
+                rs.getString("nombre"), rs.getBoolean("activo"), rs.getLong("version"),
+                rs.getLong("secuencia_cambio"), rs.getLong("transaccion_cambio"));
+    }
+
+    // Traduce la violación de unicidad al campo afectado por el nombre de la restricción
+    private static RegistroDuplicadoException conflicto(DuplicateKeyException e,
+                                                        String mensajeCodigo, String mensajeNombre) {
+        String restriccion = RestriccionesBd.violada(e);
+        if (RestriccionesBd.REFERENCIAS_CODIGO.equals(restriccion)) {
+            return new RegistroDuplicadoException("codigo", mensajeCodigo);
+        }
+        if (RestriccionesBd.REFERENCIAS_NOMBRE.equals(restriccion)) {
+            return new RegistroDuplicadoException("nombre", mensajeNombre);
+        }
+        return new RegistroDuplicadoException(null, "El código o el nombre ya están registrados.");
+    }
+
+    private String normalizarOrden(String orden) {
+        if (orden == null || orden.isBlank()) {
+            return "idReferencia";
+        }
+        switch (orden.trim().toLowerCase()) {
+            case "id":
+                return "idReferencia";
+            case "codigo":
+                return "codigo";
+            case "nombre":
+                return "nombre";
+            default:
+                throw new IllegalArgumentException("El orden debe ser id, codigo o nombre.");
+        }
+    }
+
+    private static Specification<Referencia> porEstado(Boolean activo) {
+        return (root, query, cb) -> activo == null ? null : cb.equal(root.get("activo"), activo);
+    }
+
+    private static Specification<Referencia> porPrefijo(String prefijo) {
+        return (root, query, cb) -> {
+            if (prefijo == null || prefijo.isBlank()) {
+                return null;
+            }
+            String patron = escaparLike(prefijo.trim().toUpperCase()) + "%";
+            return cb.or(
+                    cb.like(root.get("codigo"), patron, '\\'),
+                    cb.like(cb.upper(root.get("nombre")), patron, '\\'));
+        };
+    }
+
+    private static Specification<Referencia> despuesDe(String campo, String ultimoValor) {
+        return (root, query, cb) -> {
+            if (ultimoValor == null) {
+                return null;
+            }
+            if (campo.equals("idReferencia")) {
+                return cb.greaterThan(root.get(campo), Long.valueOf(ultimoValor));
+            }
+            // codigo y nombre son únicos, por eso basta con comparar la columna de orden
+            return cb.greaterThan(root.get(campo), ultimoValor);
+        };
+    }
+
+    private static String escaparLike(String texto) {
+        return texto.replace("\\", "\\\\").replace("%", "\\%").replace("_", "\\_");
+    }
+
+    private static String valorDeOrden(String campo, Referencia referencia) {
+        switch (campo) {
+            case "codigo":
+                return referencia.getCodigo();
+            case "nombre":
+                return referencia.getNombre();
+            default:
+                return String.valueOf(referencia.getIdReferencia());
+        }
+    }
+
+    private static String codificarCursor(String campo, String valor) {
+        String crudo = campo + ":" + valor;
+        return Base64.getUrlEncoder().withoutPadding()
+                .encodeToString(crudo.getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String decodificarCursor(String campo, String cursor) {
+        if (cursor == null || cursor.isBlank()) {
+            return null;
+        }
+        String crudo;
+        try {
+            crudo = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException("El cursor no es válido.");
+        }
+        String prefijo = campo + ":";
+        if (!crudo.startsWith(prefijo)) {
+            throw new IllegalArgumentException("El cursor no corresponde al orden solicitado.");
+        }
+        String valor = crudo.substring(prefijo.length());
+        if (campo.equals("idReferencia")) {
+            try {
+                Long.parseLong(valor);
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("El cursor no es válido.");
+            }
+        }
+        return valor;
     }
 }
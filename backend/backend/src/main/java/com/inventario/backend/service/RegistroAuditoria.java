@@ -0,0 +1,218 @@
+package com.inventario.backend.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.annotation.PreDestroy;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.stereotype.Component;
+
+import java.sql.Timestamp;
+import java.sql.Types;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+// Auditoría de cambios sin sumar una escritura a cada petición.
+// - Quien cambia algo solo encola el evento (cola sin bloqueo, acotada con un contador atómico).
+// - Un hilo escritor la vacía por lotes: al llegar a un lote completo o cada intervalo.
+// - Cola llena: quien publica escribe él mismo un lote (como CallerRunsPolicy). Frena a los
+//   productores hasta el ritmo de la base de datos en lugar de perder eventos o crecer sin límite.
+// - Al detener la aplicación se escribe lo pendiente.
+@Component
+public class RegistroAuditoria {
+
+    public static final String ENTIDAD_USUARIO = "usuario";
+    public static final String ENTIDAD_REFERENCIA = "referencia";
+
+    private static final Logger log = LoggerFactory.getLogger(RegistroAuditoria.class);
+
+    private static final String INSERTAR =
+            "INSERT INTO auditoria (fecha, id_usuario, entidad, id_entidad, accion, detalle)"
+                    + " VALUES (?, ?, ?, ?, ?, CAST(? AS jsonb))";
+
+    // detalle ya serializado: el objeto puede cambiar después de publicarse
+    private record Evento(Instant fecha, Long idUsuario, String entidad, Long idEntidad,
+                          String accion, String detalle) {
+    }
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ObjectMapper objectMapper;
+    private final int capacidad;
+    private final int tamanoLote;
+    private final long intervaloNanos;
+
+    private final ConcurrentLinkedQueue<Evento> cola = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger pendientes = new AtomicInteger();
+    private final AtomicLong escritos = new AtomicLong();
+    private final AtomicLong fallidos = new AtomicLong();
+    private final AtomicLong directos = new AtomicLong();
+    private final Thread escritor;
+    private volatile boolean activo = true;
+
+    public RegistroAuditoria(JdbcTemplate jdbcTemplate, ObjectMapper objectMapper,
+                             @Value("${inventario.auditoria.capacidad:10000}") int capacidad,
+                             @Value("${inventario.auditoria.lote:500}") int tamanoLote,
+                             @Value("${inventario.auditoria.intervalo-ms:200}") long intervaloMs,
+                             MeterRegistry registro) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.objectMapper = objectMapper;
+        this.capacidad = capacidad;
+        this.tamanoLote = tamanoLote;
+        this.intervaloNanos = TimeUnit.MILLISECONDS.toNanos(intervaloMs);
+
+        this.escritor = new Thread(this::escribirEnSegundoPlano, "auditoria-escritor");
+        escritor.setDaemon(true);
+        escritor.start();
+
+        Gauge.builder("inventario.auditoria.pendientes", pendientes, AtomicInteger::get)
+                .description("Eventos de auditoría en cola")
+                .register(registro);
+        FunctionCounter.builder("inventario.auditoria.escritos", escritos, AtomicLong::get)
+                .description("Eventos de auditoría guardados")
+                .register(registro);
+        FunctionCounter.builder("inventario.auditoria.fallidos", fallidos, AtomicLong::get)
+                .description("Eventos de auditoría que no se pudieron guardar")
+                .register(registro);
+        FunctionCounter.builder("inventario.auditoria.directos", directos, AtomicLong::get)
+                .description("Eventos escritos por quien publica con la cola llena")
+                .register(registro);
+    }
+
+    // ----------------------------------------------------
+    // PUBLICAR
+    // ----------------------------------------------------
+
+    //  Usuario de la sesión en el hilo actual; las tareas asíncronas deben leerlo antes de empezar
+    public Long actorActual() {
+        Authentication autenticacion = SecurityContextHolder.getContext().getAuthentication();
+        if (autenticacion == null || !autenticacion.isAuthenticated()) {
+            return null;
+        }
+        try {
+            return Long.valueOf(autenticacion.getName());
+        } catch (NumberFormatException e) {
+            return null;
+        }
+    }
+
+    public void registrar(String entidad, Long idEntidad, String accion, Object datos) {
+        registrar(actorActual(), entidad, idEntidad, accion, datos);
+    }
+
+    //  Nunca lanza: un fallo de auditoría no debe deshacer el cambio ya hecho
+    public void registrar(Long actor, String entidad, Long idEntidad, String accion, Object datos) {
+        Evento evento = new Evento(Instant.now(), actor, entidad, idEntidad, accion, serializar(datos));
+
+        boolean encolar = activo;
+        if (encolar && pendientes.incrementAndGet() > capacidad) {
+            pendientes.decrementAndGet();
+            encolar = false;
+        }
+        if (!encolar) {
+            directos.incrementAndGet();
+            List<Evento> lote = tomar(tamanoLote - 1);
+            lote.add(evento);
+            escribir(lote);
+            return;
+        }
+
+        cola.offer(evento);
+        if (pendientes.get() >= tamanoLote) {
+            LockSupport.unpark(escritor);
+        }
+    }
+
+    private String serializar(Object datos) {
+        if (datos == null) {
+            return null;
+        }
+        try {
+            return objectMapper.writeValueAsString(datos);
+        } catch (JsonProcessingException e) {
+            log.warn("No se pudo serializar el detalle de auditoría", e);
+            return null;
+        }
+    }
+
+    // ----------------------------------------------------
+    // ESCRITURA POR LOTES
+    // ----------------------------------------------------
+    private void escribirEnSegundoPlano() {
+        while (activo) {
+            if (pendientes.get() < tamanoLote) {
+                LockSupport.parkNanos(this, intervaloNanos);
+            }
+            vaciar();
+        }
+    }
+
+    private void vaciar() {
+        List<Evento> lote;
+        while (!(lote = tomar(tamanoLote)).isEmpty()) {
+            escribir(lote);
+        }
+    }
+
+    private List<Evento> tomar(int maximo) {
+        List<Evento> lote = new ArrayList<>(Math.max(1, maximo + 1));
+        Evento evento;
+        while (lote.size() < maximo && (evento = cola.poll()) != null) {
+            lote.add(evento);
+        }
+        if (!lote.isEmpty()) {
+            pendientes.addAndGet(-lote.size());
+        }
+        return lote;
+    }
+
+    private void escribir(List<Evento> lote) {
+        try {
+            jdbcTemplate.batchUpdate(INSERTAR, lote, lote.size(), (ps, evento) -> {
+                ps.setTimestamp(1, Timestamp.from(evento.fecha()));
+                ps.setObject(2, evento.idUsuario(), Types.BIGINT);
+                ps.setString(3, evento.entidad());
+                ps.setObject(4, evento.idEntidad(), Types.BIGINT);
+                ps.setString(5, evento.accion());
+                ps.setString(6, evento.detalle());
+            });
+            escritos.addAndGet(lote.size());
+        } catch (RuntimeException e) {
+            fallidos.addAndGet(lote.size());
+            log.error("No se pudieron guardar {} eventos de auditoría", lote.size(), e);
+        }
+    }
+
+    // ----------------------------------------------------
+    // MÉTRICAS Y CIERRE
+    // ----------------------------------------------------
+    public int getPendientes() {
+        return pendientes.get();
+    }
+
+    //  Lo publicado después de esto se escribe directamente
+    @PreDestroy
+    public void detener() {
+        activo = false;
+        LockSupport.unpark(escritor);
+        try {
+            escritor.join(TimeUnit.SECONDS.toMillis(10));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        vaciar();
+    }
+}
@@ -1,88 +1,225 @@
 package com.inventario.backend.service;
 
 import com.inventario.backend.utils.ValidadorDatos;
+import com.inventario.backend.dto.PaginaCambios;
+import com.inventario.backend.dto.ResultadoLoteUsuarios;
+import com.inventario.backend.dto.TokenCambio;
+import com.inventario.backend.dto.UsuarioPublico;
+import com.inventario.backend.exception.LimiteExcedidoException;
+import com.inventario.backend.exception.VersionObsoletaException;
 import com.inventario.backend.model.Usuario;
 import com.inventario.backend.repository.UsuarioRepository;
+import com.inventario.backend.security.LimitadorPeticiones;
+import com.inventario.backend.security.TokenService;
 import org.springframework.beans.factory.annotation.Autowired;
-import org.springframework.security.crypto.password.PasswordEncoder;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Transactional;
 
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
 import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
 
 @Service
 public class UsuarioService {
 
+    private static final int TAMANO_CAMBIOS_DEFECTO = 500;
+    private static final int TAMANO_CAMBIOS_MAXIMO = 2000;
+    private static final int MAXIMO_LOTE_ESTADO = 1000;
+    private static final int MAXIMO_LOTE_REGISTRO = 500;
+
+    private static final String CREDENCIALES_INVALIDAS = "Cédula o contraseña incorrectas.";
+
+    // Solo cambia (y numera) las filas cuyo estado es distinto del pedido
+    private static final String CAMBIAR_ESTADO_LOTE =
+            "UPDATE usuarios SET activo = ?, version = version + 1, version_token = version_token + 1"
+                    + " WHERE id_usuario = ANY(?) AND activo <> ?"
+                    + " RETURNING id_usuario, nombre, cedula, correo, rol, activo, version, secuencia_cambio, transaccion_cambio, version_token";
+
+    // Cambios después del token, solo de transacciones ya terminadas (V11)
+    private static final String CAMBIOS =
+            "SELECT id_usuario, nombre, cedula, correo, rol, activo, version, secuencia_cambio, transaccion_cambio"
+                    + " FROM usuarios"
+                    + " WHERE (transaccion_cambio, secuencia_cambio) > (?, ?)"
+                    + " AND transaccion_cambio < pg_snapshot_xmin(pg_current_snapshot())::text::bigint"
+                    + " ORDER BY transaccion_cambio, secuencia_cambio LIMIT ?";
+
+    private static final String EXISTENTES =
+            "SELECT id_usuario FROM usuarios WHERE id_usuario = ANY(?)";
+
+    // Un INSERT por lote: las filas que chocan con una cédula o correo registrados después de la
+    // consulta previa se saltan (ON CONFLICT DO NOTHING) y RETURNING dice cuáles se guardaron
+    private static final String INSERTAR_LOTE =
+            "INSERT INTO usuarios (nombre, cedula, correo, contrasena, rol, activo)"
+                    + " SELECT * FROM unnest(?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::varchar[], ?::boolean[])"
+                    + " ON CONFLICT DO NOTHING"
+                    + " RETURNING id_usuario, nombre, cedula, correo, rol, activo, version, secuencia_cambio, transaccion_cambio";
+
     @Autowired
     private UsuarioRepository usuarioRepository;
 
     @Autowired
-    private PasswordEncoder passwordEncoder;
+    private ContrasenaService contrasenaService;
 
-    //  Registrar usuario
-    public Usuario registrarUsuario(Usuario usuario) {
-        if (usuario.getContrasena() == null || usuario.getContrasena().isEmpty()) {
-            throw new IllegalArgumentException("La contraseña no puede ser nula o vacía");
+    @Autowired
+    private DifusionCambios difusionCambios;
+
+    @Autowired
+    private LimitadorPeticiones limitadorPeticiones;
+
+    @Autowired
+    private TokenService tokenService;
+
+    @Autowired
+    private RegistroAuditoria registroAuditoria;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    // Hilos de E/S para el guardado posterior al hash (no ocupar el pool de BCrypt con JDBC)
+    @Autowired
+    @Qualifier("applicationTaskExecutor")
+    private Executor executorTareas;
+
+    //  Registrar usuario (el hash se calcula en el pool de contraseñas)
+    public CompletableFuture<Usuario> registrarUsuario(Usuario usuario) {
+        try {
+            ValidadorDatos.validarUsuario(usuario);
+        } catch (IllegalArgumentException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+
+        //  Cédula y correo se comprueban en una sola consulta
+        List<UsuarioPublico> existentes = usuarioRepository.findProjectedByCedulaInOrCorreoIn(
+                List.of(usuario.getCedula()), List.of(usuario.getCorreo()));
+        if (!existentes.isEmpty()) {
+            boolean cedulaRepetida = existentes.stream().anyMatch(u -> u.cedula().equals(usuario.getCedula()));
+            return CompletableFuture.failedFuture(new IllegalArgumentException(
+                    cedulaRepetida ? "La cédula ya está registrada." : "El correo ya está registrado."));
         }
-        usuario.setContrasena(passwordEncoder.encode(usuario.getContrasena()));
-        return usuarioRepository.save(usuario);
+
+        Long actor = registroAuditoria.actorActual();
+        return contrasenaService.codificar(usuario.getContrasena())
+                .thenApplyAsync(hash -> {
+                    usuario.setContrasena(hash);
+                    Usuario guardado = usuarioRepository.save(usuario);
+                    UsuarioPublico publico = UsuarioPublico.de(guardado);
+                    difusionCambios.publicar(DifusionCambios.CANAL_USUARIOS, "registrado", publico);
+                    registroAuditoria.registrar(actor, RegistroAuditoria.ENTIDAD_USUARIO,
+                            guardado.getIdUsuario(), "registrado", publico);
+                    return guardado;
+                }, executorTareas);
     }
 
     //  Iniciar sesión
-    public Optional<Usuario> login(String cedula, String contrasena) {
-        Optional<Usuario> usuarioOpt = usuarioRepository.findByCedula(cedula);
+    //  Siempre se ejecuta un BCrypt (aunque la cédula no exista) para que el tiempo sea constante
+    //  Los intentos por cédula están limitados (fuerza bruta repartida entre varias IPs)
+    //  Cédula inexistente y contraseña incorrecta dan el mismo mensaje: no revela qué cédulas existen.
+    //  Que la cuenta está desactivada solo se dice con la contraseña correcta.
+    public CompletableFuture<Usuario> login(String cedula, String contrasena) {
+        if (contrasena == null || contrasena.trim().isEmpty()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("La contraseña no puede estar vacía."));
+        }
 
-        if (usuarioOpt.isEmpty()) {
-            throw new IllegalArgumentException("Cédula no encontrada.");
+        long espera = limitadorPeticiones.esperaLoginCedula(cedula);
+        if (espera > 0) {
+            return CompletableFuture.failedFuture(new LimiteExcedidoException(espera));
         }
 
-        Usuario usuario = usuarioOpt.get();
+        Optional<Usuario> usuarioOpt = usuarioRepository.findByCedula(cedula);
+        String hashGuardado = usuarioOpt.map(Usuario::getContrasena).orElse(null);
 
-        // se verifica si está inactivo
-     if (!usuario.isActivo()) {
-    throw new IllegalArgumentException("El usuario está desactivado. Contacta al administrador.");
-}
+        return contrasenaService.coincide(contrasena, hashGuardado)
+                .thenApply(coincide -> {
+                    if (usuarioOpt.isEmpty()) {
+                        registrarLoginFallido(null, cedula, "cedula_no_encontrada");
+                        throw new IllegalArgumentException(CREDENCIALES_INVALIDAS);
+                    }
 
+                    Usuario usuario = usuarioOpt.get();
 
+                    if (!coincide) {
+                        registrarLoginFallido(usuario.getIdUsuario(), cedula, "contrasena_incorrecta");
+                        throw new IllegalArgumentException(CREDENCIALES_INVALIDAS);
+                    }
 
-        // Se valida contraseña
-        ValidadorDatos.validarCredenciales(usuario, contrasena);
+                    // se verifica si está inactivo
+                    if (!usuario.isActivo()) {
+                        registrarLoginFallido(usuario.getIdUsuario(), cedula, "usuario_inactivo");
+                        throw new IllegalArgumentException("El usuario está desactivado. Contacta al administrador.");
+                    }
+                    registroAuditoria.registrar(usuario.getIdUsuario(), RegistroAuditoria.ENTIDAD_USUARIO,
+                            usuario.getIdUsuario(), "login", null);
+                    return usuario;
+                });
+    }
+
+    //  El hash de una edición de perfil también pasa por el pool acotado de BCrypt.
+    //  Se espera aquí: la entidad pertenece a la sesión de esta petición y se guarda en este hilo.
+    private String codificarEsperando(String contrasena) {
+        try {
+            return contrasenaService.codificar(contrasena).join();
+        } catch (CompletionException e) {
+            // RejectedExecutionException (pool lleno) -> 503 en GlobalExceptionHandler
+            if (e.getCause() instanceof RuntimeException causa) {
+                throw causa;
+            }
+            throw e;
+        }
+    }
 
-        return Optional.of(usuario);
+    //  Sin sesión: el actor queda nulo y el usuario afectado (si existe) va en idEntidad
+    private void registrarLoginFallido(Long idUsuario, String cedula, String motivo) {
+        registroAuditoria.registrar(null, RegistroAuditoria.ENTIDAD_USUARIO, idUsuario, "login_fallido",
+                Map.of("cedula", String.valueOf(cedula), "motivo", motivo));
     }
 
-    //  Editar perfil
-    public Usuario actualizarPerfil(Long idUsuario, Usuario nuevosDatos) {
+    //  Editar perfil (versionEsperada = If-Match; null = sin control de versión)
+    //  Sin puedeCambiarRol (TECNICO editando su perfil) se conserva el rol actual
+    public Usuario actualizarPerfil(Long idUsuario, Usuario nuevosDatos, Long versionEsperada,
+                                    boolean puedeCambiarRol) {
         Usuario usuario = usuarioRepository.findById(idUsuario)
                 .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
 
+        if (versionEsperada != null && !versionEsperada.equals(usuario.getVersion())) {
+            throw new VersionObsoletaException("El usuario fue modificado por otro cliente.");
+        }
+        if (!puedeCambiarRol) {
+            nuevosDatos.setRol(usuario.getRol());
+        }
+
         //  Si se envía una nueva contraseña, validar todo
-        if (nuevosDatos.getContrasena() != null && !nuevosDatos.getContrasena().isEmpty()) {
+        boolean cambioContrasena = nuevosDatos.getContrasena() != null && !nuevosDatos.getContrasena().isEmpty();
+        if (cambioContrasena) {
             ValidadorDatos.validarUsuario(nuevosDatos);
-            usuario.setContrasena(passwordEncoder.encode(nuevosDatos.getContrasena()));
+            usuario.setContrasena(codificarEsperando(nuevosDatos.getContrasena()));
         } else {
             // Validar los demás campos, pero ignorar la contraseña
-            if (nuevosDatos.getNombre() == null || nuevosDatos.getNombre().trim().isEmpty()) {
-                throw new IllegalArgumentException("El nombre no puede estar vacío.");
-            }
-
-            if (nuevosDatos.getCedula() == null || !nuevosDatos.getCedula().matches("\\d{6,10}")) {
-                throw new IllegalArgumentException("La cédula debe contener entre 6 y 10 dígitos numéricos.");
-            }
-
-            if (nuevosDatos.getCorreo() == null ||
-                    !nuevosDatos.getCorreo().matches("^[\\w-.]+@[\\w-]+\\.[a-zA-Z]{2,}$")) {
-                throw new IllegalArgumentException("El correo electrónico no es válido.");
-            }
-
-            if (nuevosDatos.getRol() == null || nuevosDatos.getRol().trim().isEmpty()) {
-                throw new IllegalArgumentException("El rol es obligatorio.");
-            }
+            ValidadorDatos.validarUsuarioSinContrasena(nuevosDatos);
+        }
 
-            String rol = nuevosDatos.getRol().toUpperCase();
-            if (!rol.equals("ADMIN") && !rol.equals("TECNICO")) {
-                throw new IllegalArgumentException("El rol debe ser ADMIN o TECNICO.");
-            }
+        //  Otro rol, cédula o contraseña: las sesiones abiertas con los datos anteriores se cierran
+        boolean revocarSesiones = cambioContrasena
+                || !Objects.equals(usuario.getRol(), nuevosDatos.getRol())
+                || !Objects.equals(usuario.getCedula(), nuevosDatos.getCedula());
+        if (revocarSesiones) {
+            usuario.setVersionToken(usuario.getVersionToken() + 1);
         }
 
         usuario.setNombre(nuevosDatos.getNombre());
@@ -90,26 +227,322 @@ public class UsuarioService {
         usuario.setRol(nuevosDatos.getRol());
         usuario.setCedula(nuevosDatos.getCedula());
 
-        return usuarioRepository.save(usuario);
+        Usuario guardado = usuarioRepository.save(usuario);
+        if (revocarSesiones) {
+            tokenService.revocar(idUsuario, guardado.getVersionToken());
+        }
+        UsuarioPublico publico = UsuarioPublico.de(guardado);
+        difusionCambios.publicar(DifusionCambios.CANAL_USUARIOS, "actualizado", publico);
+        registroAuditoria.registrar(RegistroAuditoria.ENTIDAD_USUARIO, idUsuario,
+                cambioContrasena ? "actualizado_con_contrasena" : "actualizado", publico);
+        return guardado;
     }
 
     //  Obtener todos los usuarios
-    public List<Usuario> obtenerTodos() {
-        return usuarioRepository.findAll();
+    @Transactional(readOnly = true)
+    public List<UsuarioPublico> obtenerTodos() {
+        return usuarioRepository.findAllProjectedBy();
     }
 
     //  Obtener usuario por id
-    public Optional<Usuario> obtenerPorId(Long idUsuario) {
-        return usuarioRepository.findById(idUsuario);
+    @Transactional(readOnly = true)
+    public Optional<UsuarioPublico> obtenerPorId(Long idUsuario) {
+        return usuarioRepository.findProjectedByIdUsuario(idUsuario);
+    }
+
+    //  Cambios desde un token (sincronización incremental)
+    @Transactional(readOnly = true)
+    public PaginaCambios<UsuarioPublico> obtenerCambios(String desde, Integer tamano) {
+        TokenCambio token = TokenCambio.leer(desde);
+        int limite = (tamano == null || tamano <= 0) ? TAMANO_CAMBIOS_DEFECTO : Math.min(tamano, TAMANO_CAMBIOS_MAXIMO);
+
+        List<UsuarioPublico> filas = jdbcTemplate.query(CAMBIOS, (rs, n) -> mapearPublico(rs),
+                token.transaccion(), token.secuencia(), limite + 1);
+        return PaginaCambios.de(filas, limite, token, UsuarioPublico::tokenCambio);
     }
 
     // Cambiar estado del usuario
 public Usuario cambiarEstadoUsuario(Long idUsuario, boolean activo) {
     Usuario usuario = usuarioRepository.findById(idUsuario)
-            .orElseThrow(() -> new RuntimeException("Usuario no encontrado"));
+            .orElseThrow(() -> new IllegalArgumentException("Usuario no encontrado"));
 
+    //  Al desactivar, los tokens emitidos dejan de valer
+    boolean cambia = usuario.isActivo() != activo;
+    if (cambia) {
+        usuario.setVersionToken(usuario.getVersionToken() + 1);
+    }
     usuario.setActivo(activo);
-    return usuarioRepository.save(usuario);
+    Usuario guardado = usuarioRepository.save(usuario);
+    if (cambia) {
+        tokenService.revocar(idUsuario, guardado.getVersionToken());
+    }
+    UsuarioPublico publico = UsuarioPublico.de(guardado);
+    difusionCambios.publicar(DifusionCambios.CANAL_USUARIOS, "estado", publico);
+    registroAuditoria.registrar(RegistroAuditoria.ENTIDAD_USUARIO, idUsuario,
+            activo ? "activado" : "desactivado", publico);
+    return guardado;
 }
 
+
+    // ----------------------------------------------------
+    // CAMBIAR ESTADO DE VARIOS USUARIOS (un solo UPDATE ... WHERE id_usuario = ANY(?))
+    // ----------------------------------------------------
+    public ResultadoLoteUsuarios cambiarEstadoLote(List<Long> ids, boolean activo) {
+        if (ids == null || ids.isEmpty()) {
+            throw new IllegalArgumentException("Debe indicar al menos un usuario.");
+        }
+        if (ids.size() > MAXIMO_LOTE_ESTADO) {
+            throw new IllegalArgumentException("Máximo " + MAXIMO_LOTE_ESTADO + " usuarios por lote.");
+        }
+        if (ids.contains(null)) {
+            throw new IllegalArgumentException("La lista contiene ids vacíos.");
+        }
+
+        Long[] distintos = new LinkedHashSet<>(ids).toArray(Long[]::new);
+        Map<Long, UsuarioPublico> actualizados = new HashMap<>();
+        Map<Long, Integer> versionesToken = new HashMap<>();
+        jdbcTemplate.query(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(CAMBIAR_ESTADO_LOTE);
+            ps.setBoolean(1, activo);
+            ps.setArray(2, conexion.createArrayOf("bigint", distintos));
+            ps.setBoolean(3, activo);
+            return ps;
+        }, (ResultSet rs) -> {
+            UsuarioPublico usuario = mapearPublico(rs);
+            actualizados.put(usuario.idUsuario(), usuario);
+            versionesToken.put(usuario.idUsuario(), rs.getInt("version_token"));
+        });
+        //  Cada cambio de estado incrementó version_token: los tokens de esos usuarios dejan de valer
+        versionesToken.forEach(tokenService::revocar);
+
+        //  Los que no cambiaron: ya tenían ese estado o no existen (segunda consulta solo si hace falta)
+        Set<Long> existentes = new HashSet<>(actualizados.keySet());
+        if (actualizados.size() < distintos.length) {
+            jdbcTemplate.query(conexion -> {
+                PreparedStatement ps = conexion.prepareStatement(EXISTENTES);
+                ps.setArray(1, conexion.createArrayOf("bigint", distintos));
+                return ps;
+            }, (ResultSet rs) -> {
+                existentes.add(rs.getLong(1));
+            });
+        }
+
+        ResultadoLoteUsuarios resultado = new ResultadoLoteUsuarios();
+        resultado.setProcesados(ids.size());
+        for (int i = 0; i < ids.size(); i++) {
+            Long id = ids.get(i);
+            UsuarioPublico usuario = actualizados.get(id);
+            String estado = usuario != null ? ResultadoLoteUsuarios.ACTUALIZADO
+                    : existentes.contains(id) ? ResultadoLoteUsuarios.SIN_CAMBIOS
+                    : ResultadoLoteUsuarios.NO_ENCONTRADO;
+            resultado.getResultados().add(new ResultadoLoteUsuarios.Elemento(i, estado,
+                    estado.equals(ResultadoLoteUsuarios.NO_ENCONTRADO) ? "Usuario no encontrado" : null,
+                    usuario));
+        }
+        resultado.setExitosos(actualizados.size());
+
+        Long actor = registroAuditoria.actorActual();
+        for (UsuarioPublico usuario : actualizados.values()) {
+            difusionCambios.publicar(DifusionCambios.CANAL_USUARIOS, "estado", usuario);
+            registroAuditoria.registrar(actor, RegistroAuditoria.ENTIDAD_USUARIO, usuario.idUsuario(),
+                    activo ? "activado" : "desactivado", usuario);
+        }
+        return resultado;
+    }
+
+    // ----------------------------------------------------
+    // REGISTRAR VARIOS USUARIOS
+    //   Validación y duplicados con una consulta (antes de calcular hashes), hashes repartidos
+    //   entre los núcleos y un INSERT con el resultado de cada fila
+    // ----------------------------------------------------
+    public CompletableFuture<ResultadoLoteUsuarios> registrarLote(List<Usuario> usuarios) {
+        if (usuarios == null || usuarios.isEmpty()) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Debe enviar al menos un usuario."));
+        }
+        if (usuarios.size() > MAXIMO_LOTE_REGISTRO) {
+            return CompletableFuture.failedFuture(
+                    new IllegalArgumentException("Máximo " + MAXIMO_LOTE_REGISTRO + " usuarios por lote."));
+        }
+
+        ResultadoLoteUsuarios.Elemento[] elementos = new ResultadoLoteUsuarios.Elemento[usuarios.size()];
+        Set<String> cedulasVistas = new HashSet<>();
+        Set<String> correosVistos = new HashSet<>();
+        List<Integer> validos = new ArrayList<>(usuarios.size());
+
+        for (int i = 0; i < usuarios.size(); i++) {
+            Usuario usuario = usuarios.get(i);
+            try {
+                ValidadorDatos.validarUsuario(usuario);
+            } catch (IllegalArgumentException e) {
+                elementos[i] = error(i, e.getMessage());
+                continue;
+            }
+            if (!cedulasVistas.add(usuario.getCedula())) {
+                elementos[i] = error(i, "La cédula está repetida en el lote.");
+            } else if (!correosVistos.add(usuario.getCorreo())) {
+                elementos[i] = error(i, "El correo está repetido en el lote.");
+            } else {
+                validos.add(i);
+            }
+        }
+
+        if (!validos.isEmpty()) {
+            Set<String> cedulasExistentes = new HashSet<>();
+            Set<String> correosExistentes = new HashSet<>();
+            for (UsuarioPublico existente :
+                    usuarioRepository.findProjectedByCedulaInOrCorreoIn(cedulasVistas, correosVistos)) {
+                cedulasExistentes.add(existente.cedula());
+                correosExistentes.add(existente.correo());
+            }
+            validos.removeIf(i -> {
+                Usuario usuario = usuarios.get(i);
+                if (cedulasExistentes.contains(usuario.getCedula())) {
+                    elementos[i] = error(i, "La cédula ya está registrada.");
+                    return true;
+                }
+                if (correosExistentes.contains(usuario.getCorreo())) {
+                    elementos[i] = error(i, "El correo ya está registrado.");
+                    return true;
+                }
+                return false;
+            });
+        }
+
+        if (validos.isEmpty()) {
+            return CompletableFuture.completedFuture(resultadoLote(elementos, 0));
+        }
+
+        List<String> contrasenas = new ArrayList<>(validos.size());
+        for (int i : validos) {
+            contrasenas.add(usuarios.get(i).getContrasena());
+        }
+
+        Long actor = registroAuditoria.actorActual();
+        return contrasenaService.codificarLote(contrasenas)
+                .thenApplyAsync(hashes -> {
+                    List<Usuario> nuevos = new ArrayList<>(validos.size());
+                    for (int j = 0; j < validos.size(); j++) {
+                        Usuario usuario = usuarios.get(validos.get(j));
+                        usuario.setContrasena(hashes.get(j));
+                        nuevos.add(usuario);
+                    }
+                    return guardarLote(nuevos, validos, elementos, actor);
+                }, executorTareas);
+    }
+
+    // Duplicados: una consulta más solo si alguna fila se saltó
+    // Otro error de datos: se reintenta fila por fila para saber cuál falla
+    private ResultadoLoteUsuarios guardarLote(List<Usuario> nuevos, List<Integer> indices,
+                                              ResultadoLoteUsuarios.Elemento[] elementos, Long actor) {
+        Map<String, UsuarioPublico> guardados;
+        try {
+            guardados = insertarLote(nuevos);
+        } catch (DataIntegrityViolationException e) {
+            guardados = new HashMap<>();
+            for (int j = 0; j < indices.size(); j++) {
+                try {
+                    guardados.putAll(insertarLote(List.of(nuevos.get(j))));
+                } catch (DataIntegrityViolationException errorFila) {
+                    // Primera línea del error de PostgreSQL (sin el detalle con la fila completa)
+                    String causa = String.valueOf(errorFila.getMostSpecificCause().getMessage())
+                            .lines().findFirst().orElse("");
+                    int i = indices.get(j);
+                    elementos[i] = error(i, "No se pudo guardar el usuario: " + causa);
+                }
+            }
+        }
+
+        //  Las filas que no volvieron en RETURNING chocaron con una cédula o un correo registrados
+        List<Integer> saltados = new ArrayList<>();
+        for (int j = 0; j < indices.size(); j++) {
+            int i = indices.get(j);
+            UsuarioPublico guardado = guardados.get(nuevos.get(j).getCedula());
+            if (guardado != null) {
+                elementos[i] = new ResultadoLoteUsuarios.Elemento(i, ResultadoLoteUsuarios.REGISTRADO, null, guardado);
+                difusionCambios.publicar(DifusionCambios.CANAL_USUARIOS, "registrado", guardado);
+                registroAuditoria.registrar(actor, RegistroAuditoria.ENTIDAD_USUARIO, guardado.idUsuario(),
+                        "registrado", guardado);
+            } else if (elementos[i] == null) {
+                saltados.add(j);
+            }
+        }
+
+        if (!saltados.isEmpty()) {
+            Set<String> cedulas = new HashSet<>();
+            Set<String> correos = new HashSet<>();
+            for (int j : saltados) {
+                cedulas.add(nuevos.get(j).getCedula());
+                correos.add(nuevos.get(j).getCorreo());
+            }
+            Set<String> cedulasExistentes = new HashSet<>();
+            Set<String> correosExistentes = new HashSet<>();
+            for (UsuarioPublico existente : usuarioRepository.findProjectedByCedulaInOrCorreoIn(cedulas, correos)) {
+                cedulasExistentes.add(existente.cedula());
+                correosExistentes.add(existente.correo());
+            }
+            for (int j : saltados) {
+                Usuario usuario = nuevos.get(j);
+                int i = indices.get(j);
+                elementos[i] = error(i, cedulasExistentes.contains(usuario.getCedula())
+                        ? "La cédula ya está registrada."
+                        : correosExistentes.contains(usuario.getCorreo())
+                        ? "El correo ya está registrado."
+                        : "La cédula o el correo ya están registrados.");
+            }
+        }
+        return resultadoLote(elementos, guardados.size());
+    }
+
+    // Usuarios guardados por cédula
+    private Map<String, UsuarioPublico> insertarLote(List<Usuario> usuarios) {
+        String[] nombres = new String[usuarios.size()];
+        String[] cedulas = new String[usuarios.size()];
+        String[] correos = new String[usuarios.size()];
+        String[] contrasenas = new String[usuarios.size()];
+        String[] roles = new String[usuarios.size()];
+        Boolean[] activos = new Boolean[usuarios.size()];
+        for (int i = 0; i < usuarios.size(); i++) {
+            Usuario usuario = usuarios.get(i);
+            nombres[i] = usuario.getNombre();
+            cedulas[i] = usuario.getCedula();
+            correos[i] = usuario.getCorreo();
+            contrasenas[i] = usuario.getContrasena();
+            roles[i] = usuario.getRol();
+            activos[i] = usuario.isActivo();
+        }
+        Map<String, UsuarioPublico> guardados = new HashMap<>();
+        jdbcTemplate.query(conexion -> {
+            PreparedStatement ps = conexion.prepareStatement(INSERTAR_LOTE);
+            ps.setArray(1, conexion.createArrayOf("varchar", nombres));
+            ps.setArray(2, conexion.createArrayOf("varchar", cedulas));
+            ps.setArray(3, conexion.createArrayOf("varchar", correos));
+            ps.setArray(4, conexion.createArrayOf("varchar", contrasenas));
+            ps.setArray(5, conexion.createArrayOf("varchar", roles));
+            ps.setArray(6, conexion.createArrayOf("boolean", activos));
+            return ps;
+        }, (ResultSet rs) -> {
+            UsuarioPublico guardado = mapearPublico(rs);
+            guardados.put(guardado.cedula(), guardado);
+        });
+        return guardados;
+    }
+
+    private static ResultadoLoteUsuarios.Elemento error(int indice, String mensaje) {
+        return new ResultadoLoteUsuarios.Elemento(indice, ResultadoLoteUsuarios.ERROR, mensaje, null);
+    }
+
+    private static ResultadoLoteUsuarios resultadoLote(ResultadoLoteUsuarios.Elemento[] elementos, int exitosos) {
+        ResultadoLoteUsuarios resultado = new ResultadoLoteUsuarios();
+        resultado.setProcesados(elementos.length);
+        resultado.setExitosos(exitosos);
+        resultado.setResultados(new ArrayList<>(Arrays.asList(elementos)));
+        return resultado;
+    }
+
+    private static UsuarioPublico mapearPublico(ResultSet rs) throws SQLException {
+        return new UsuarioPublico(rs.getLong("id_usuario"), rs.getString("nombre"), rs.getString("cedula"),
+                rs.getString("correo"), rs.getString("rol"), rs.getBoolean("activo"),
+                rs.getLong("version"), rs.getLong("secuencia_cambio"), rs.getLong("transaccion_cambio"));
+    }
 }
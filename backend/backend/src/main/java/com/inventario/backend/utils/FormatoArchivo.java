@@ -0,0 +1,35 @@
+package com.inventario.backend.utils;
+
+// Formatos de archivo aceptados por la importación y la exportación masiva
+public enum FormatoArchivo {
+
+    CSV("text/csv"),
+    NDJSON("application/x-ndjson");
+
+    private final String tipoContenido;
+
+    FormatoArchivo(String tipoContenido) {
+        this.tipoContenido = tipoContenido;
+    }
+
+    public String getTipoContenido() {
+        return tipoContenido;
+    }
+
+    // Resuelve el formato desde un parámetro explícito o, si no viene, desde el Content-Type.
+    // Devuelve null si no es ninguno de los soportados.
+    public static FormatoArchivo resolver(String formato, String contentType) {
+        String valor = formato != null ? formato : contentType;
+        if (valor == null) {
+            return null;
+        }
+        valor = valor.toLowerCase();
+        if (valor.contains("csv")) {
+            return CSV;
+        }
+        if (valor.contains("ndjson") || valor.contains("jsonl")) {
+            return NDJSON;
+        }
+        return null;
+    }
+}
@@ -0,0 +1,69 @@
+package com.inventario.backend.utils;
+
+import java.util.ArrayList;
+import java.util.List;
+
+public class FormatoCsv {
+
+    private FormatoCsv() {
+    }
+
+    // ----------------------------------------------------
+    // SEPARAR UNA LÍNEA CSV (coma como separador, comillas dobles opcionales)
+    // ----------------------------------------------------
+    public static List<String> separarLinea(String linea) {
+        List<String> campos = new ArrayList<>();
+        StringBuilder actual = new StringBuilder();
+        boolean entreComillas = false;
+
+        for (int i = 0; i < linea.length(); i++) {
+            char c = linea.charAt(i);
+            if (entreComillas) {
+                if (c == '"') {
+                    if (i + 1 < linea.length() && linea.charAt(i + 1) == '"') {
+                        actual.append('"');
+                        i++;
+                    } else {
+                        entreComillas = false;
+                    }
+                } else {
+                    actual.append(c);
+                }
+            } else if (c == '"') {
+                entreComillas = true;
+            } else if (c == ',') {
+                campos.add(actual.toString());
+                actual.setLength(0);
+            } else {
+                actual.append(c);
+            }
+        }
+
+        if (entreComillas) {
+            throw new IllegalArgumentException("La línea tiene comillas sin cerrar.");
+        }
+        campos.add(actual.toString());
+        return campos;
+    }
+
+    // ----------------------------------------------------
+    // ESCAPAR UN CAMPO (comillas solo cuando hacen falta)
+    // ----------------------------------------------------
+    public static String escapar(String valor) {
+        if (valor == null) {
+            return "";
+        }
+        boolean requiereComillas = false;
+        for (int i = 0; i < valor.length(); i++) {
+            char c = valor.charAt(i);
+            if (c == ',' || c == '"' || c == '\n' || c == '\r') {
+                requiereComillas = true;
+                break;
+            }
+        }
+        if (!requiereComillas) {
+            return valor;
+        }
+        return '"' + valor.replace("\"", "\"\"") + '"';
+    }
+}
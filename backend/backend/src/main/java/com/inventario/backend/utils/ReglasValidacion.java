@@ -0,0 +1,109 @@
+package com.inventario.backend.utils;
+
+// Reglas de formato escritas a mano: recorren el texto una sola vez y no crean objetos.
+// Son la única definición de cada regla; ValidadorDatos y las anotaciones de
+// com.inventario.backend.validacion las reutilizan.
+public final class ReglasValidacion {
+
+    public static final String ROL_ADMIN = "ADMIN";
+    public static final String ROL_TECNICO = "TECNICO";
+
+    private ReglasValidacion() {
+    }
+
+    // Al menos un carácter que no sea espacio (equivale a !s.trim().isEmpty())
+    public static boolean tieneTexto(String texto) {
+        if (texto == null) {
+            return false;
+        }
+        for (int i = 0; i < texto.length(); i++) {
+            if (texto.charAt(i) > ' ') {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    // \d{6,10}
+    public static boolean esCedula(String cedula) {
+        if (cedula == null || cedula.length() < 6 || cedula.length() > 10) {
+            return false;
+        }
+        for (int i = 0; i < cedula.length(); i++) {
+            if (!esDigito(cedula.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ^RF\d+$
+    public static boolean esCodigoRF(String codigo) {
+        if (codigo == null || codigo.length() < 3 || codigo.charAt(0) != 'R' || codigo.charAt(1) != 'F') {
+            return false;
+        }
+        for (int i = 2; i < codigo.length(); i++) {
+            if (!esDigito(codigo.charAt(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    // ^[\w-.]+@[\w-]+\.[a-zA-Z]{2,}$
+    public static boolean esCorreo(String correo) {
+        if (correo == null) {
+            return false;
+        }
+        int n = correo.length();
+        int i = 0;
+
+        // Parte local: [\w-.]+
+        while (i < n && (esPalabra(correo.charAt(i)) || correo.charAt(i) == '-' || correo.charAt(i) == '.')) {
+            i++;
+        }
+        if (i == 0 || i >= n || correo.charAt(i) != '@') {
+            return false;
+        }
+        i++;
+
+        // Dominio: [\w-]+
+        int inicioDominio = i;
+        while (i < n && (esPalabra(correo.charAt(i)) || correo.charAt(i) == '-')) {
+            i++;
+        }
+        if (i == inicioDominio || i >= n || correo.charAt(i) != '.') {
+            return false;
+        }
+        i++;
+
+        // Extensión: [a-zA-Z]{2,}
+        int inicioExtension = i;
+        while (i < n && esLetra(correo.charAt(i))) {
+            i++;
+        }
+        return i == n && i - inicioExtension >= 2;
+    }
+
+    // ADMIN o TECNICO, sin distinguir mayúsculas
+    public static boolean esRol(String rol) {
+        return ROL_ADMIN.equalsIgnoreCase(rol) || ROL_TECNICO.equalsIgnoreCase(rol);
+    }
+
+    public static boolean tieneLongitudMinima(String texto, int minimo) {
+        return texto != null && texto.length() >= minimo;
+    }
+
+    private static boolean esDigito(char c) {
+        return c >= '0' && c <= '9';
+    }
+
+    private static boolean esLetra(char c) {
+        return (c >= 'a' && c <= 'z') || (c >= 'A' && c <= 'Z');
+    }
+
+    // \w sin UNICODE_CHARACTER_CLASS: [a-zA-Z_0-9]
+    private static boolean esPalabra(char c) {
+        return esLetra(c) || esDigito(c) || c == '_';
+    }
+}
@@ -0,0 +1,32 @@
+package com.inventario.backend.utils;
+
+import org.postgresql.util.PSQLException;
+import org.postgresql.util.ServerErrorMessage;
+import org.springframework.dao.DataAccessException;
+
+// Nombres de las restricciones de las migraciones y lectura de la que violó una sentencia.
+// PostgreSQL envía el nombre en el error del servidor: no depende del idioma ni del texto del mensaje.
+public final class RestriccionesBd {
+
+    // V1 (UNIQUE en la columna: PostgreSQL las nombra <tabla>_<columna>_key).
+    // En bases creadas antes por Hibernate, V13 renombra sus restricciones uk... a estos nombres
+    public static final String REFERENCIAS_CODIGO = "referencias_codigo_key";
+    public static final String REFERENCIAS_NOMBRE = "referencias_nombre_key";
+
+    // V5 (CHECK de la columna: <tabla>_<columna>_check)
+    public static final String SALDOS_CANTIDAD = "saldos_cantidad_check";
+
+    private RestriccionesBd() {
+    }
+
+    // null si la causa no es un error de PostgreSQL o no nombra una restricción
+    public static String violada(DataAccessException e) {
+        for (Throwable causa = e; causa != null; causa = causa.getCause()) {
+            if (causa instanceof PSQLException psql) {
+                ServerErrorMessage error = psql.getServerErrorMessage();
+                return error == null ? null : error.getConstraint();
+            }
+        }
+        return null;
+    }
+}
@@ -1,68 +1,87 @@
 package com.inventario.backend.utils;
 
+import com.inventario.backend.exception.DatosInvalidosException;
+import com.inventario.backend.model.Movimiento;
+import com.inventario.backend.model.TipoMovimiento;
 import com.inventario.backend.model.Usuario;
 import com.inventario.backend.model.Referencia;
-import org.springframework.security.crypto.bcrypt.BCryptPasswordEncoder;
 
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Valida todos los campos en una sola pasada y reporta todos los errores juntos.
+// Si los datos son válidos no se crea ningún objeto (el mapa de errores es perezoso).
 public class ValidadorDatos {
 
-    private static final BCryptPasswordEncoder passwordEncoder = new BCryptPasswordEncoder();
+    public static final String NOMBRE_VACIO = "El nombre no puede estar vacío.";
+    public static final String CEDULA_INVALIDA = "La cédula debe contener entre 6 y 10 dígitos numéricos.";
+    public static final String CORREO_INVALIDO = "El correo electrónico no es válido.";
+    public static final String CONTRASENA_CORTA = "La contraseña debe tener al menos 6 caracteres.";
+    public static final String ROL_OBLIGATORIO = "El rol es obligatorio.";
+    public static final String ROL_INVALIDO = "El rol debe ser ADMIN o TECNICO.";
+    public static final String CODIGO_VACIO = "El código de la referencia no puede estar vacío.";
+    public static final String CODIGO_RF_INVALIDO =
+            "El código debe iniciar con 'RF' seguido únicamente de números. Ejemplos válidos: RF1, RF05, RF100.";
+    public static final String NOMBRE_REFERENCIA_VACIO = "El nombre de la referencia no puede estar vacío.";
+    public static final String REFERENCIA_OBLIGATORIA = "La referencia es obligatoria.";
+    public static final String TIPO_MOVIMIENTO_OBLIGATORIO = "El tipo debe ser ENTRADA, SALIDA o AJUSTE.";
+    public static final String CANTIDAD_POSITIVA = "La cantidad debe ser mayor que 0.";
+    public static final String CANTIDAD_AJUSTE = "La cantidad del ajuste no puede ser 0.";
+    public static final String OBSERVACION_LARGA = "La observación no puede superar 255 caracteres.";
+
+    private static final int LONGITUD_MINIMA_CONTRASENA = 6;
+    private static final int LONGITUD_MAXIMA_OBSERVACION = 255;
 
     // ----------------------------------------------------
-    // VALIDACIONES DE LOGIN
+    // VALIDACIONES DE USUARIO
     // ----------------------------------------------------
-    public static void validarCredenciales(Usuario usuario, String contrasenaIngresada) {
-        if (usuario == null) {
-            throw new IllegalArgumentException("El usuario no existe.");
-        }
-
-        if (contrasenaIngresada == null || contrasenaIngresada.trim().isEmpty()) {
-            throw new IllegalArgumentException("La contraseña no puede estar vacía.");
-        }
+    public static void validarUsuario(Usuario usuario) {
+        validarUsuario(usuario, true);
+    }
 
-        if (!passwordEncoder.matches(contrasenaIngresada, usuario.getContrasena())) {
-            throw new IllegalArgumentException("Contraseña incorrecta.");
-        }
+    // Edición de perfil sin cambio de contraseña
+    public static void validarUsuarioSinContrasena(Usuario usuario) {
+        validarUsuario(usuario, false);
     }
 
-    // ----------------------------------------------------
-    // VALIDACIONES DE USUARIO
-    // ----------------------------------------------------
-    public static void validarUsuario(Usuario usuario) {
+    private static void validarUsuario(Usuario usuario, boolean conContrasena) {
 
         if (usuario == null) {
             throw new IllegalArgumentException("El usuario no puede ser nulo.");
         }
 
-        if (usuario.getNombre() == null || usuario.getNombre().trim().isEmpty()) {
-            throw new IllegalArgumentException("El nombre no puede estar vacío.");
+        Map<String, String> errores = null;
+
+        if (!ReglasValidacion.tieneTexto(usuario.getNombre())) {
+            errores = agregar(errores, "nombre", NOMBRE_VACIO);
         }
 
-        if (usuario.getCedula() == null || !usuario.getCedula().matches("\\d{6,10}")) {
-            throw new IllegalArgumentException("La cédula debe contener entre 6 y 10 dígitos numéricos.");
+        if (!ReglasValidacion.esCedula(usuario.getCedula())) {
+            errores = agregar(errores, "cedula", CEDULA_INVALIDA);
         }
 
-        if (usuario.getCorreo() == null ||
-            !usuario.getCorreo().matches("^[\\w-.]+@[\\w-]+\\.[a-zA-Z]{2,}$")) {
-            throw new IllegalArgumentException("El correo electrónico no es válido.");
+        if (!ReglasValidacion.esCorreo(usuario.getCorreo())) {
+            errores = agregar(errores, "correo", CORREO_INVALIDO);
         }
 
-        if (usuario.getContrasena() == null || usuario.getContrasena().length() < 6) {
-            throw new IllegalArgumentException("La contraseña debe tener al menos 6 caracteres.");
+        if (conContrasena
+                && !ReglasValidacion.tieneLongitudMinima(usuario.getContrasena(), LONGITUD_MINIMA_CONTRASENA)) {
+            errores = agregar(errores, "contrasena", CONTRASENA_CORTA);
         }
 
-        if (usuario.getRol() == null || usuario.getRol().trim().isEmpty()) {
-            throw new IllegalArgumentException("El rol es obligatorio.");
+        if (!ReglasValidacion.tieneTexto(usuario.getRol())) {
+            errores = agregar(errores, "rol", ROL_OBLIGATORIO);
+        } else if (!ReglasValidacion.esRol(usuario.getRol())) {
+            errores = agregar(errores, "rol", ROL_INVALIDO);
         }
 
-        String rol = usuario.getRol().toUpperCase();
-        if (!rol.equals("ADMIN") && !rol.equals("TECNICO")) {
-            throw new IllegalArgumentException("El rol debe ser ADMIN o TECNICO.");
+        if (errores != null) {
+            throw new DatosInvalidosException(errores);
         }
     }
 
     // ----------------------------------------------------
-    // VALIDACIONES DE REFERENCIA
+    // VALIDACIONES DE REFERENCIA (incluye el formato RF + números)
     // ----------------------------------------------------
     public static void validarReferencia(Referencia referencia) {
 
@@ -70,14 +89,63 @@ public class ValidadorDatos {
             throw new IllegalArgumentException("La referencia no puede ser nula.");
         }
 
-        if (referencia.getCodigo() == null || referencia.getCodigo().trim().isEmpty()) {
-            throw new IllegalArgumentException("El código de la referencia no puede estar vacío.");
+        Map<String, String> errores = null;
+
+        if (!ReglasValidacion.tieneTexto(referencia.getCodigo())) {
+            errores = agregar(errores, "codigo", CODIGO_VACIO);
+        } else if (!ReglasValidacion.esCodigoRF(referencia.getCodigo())) {
+            errores = agregar(errores, "codigo", CODIGO_RF_INVALIDO);
         }
 
-        if (referencia.getNombre() == null || referencia.getNombre().trim().isEmpty()) {
-            throw new IllegalArgumentException("El nombre de la referencia no puede estar vacío.");
+        if (!ReglasValidacion.tieneTexto(referencia.getNombre())) {
+            errores = agregar(errores, "nombre", NOMBRE_REFERENCIA_VACIO);
         }
 
         // activo no se valida porque tu modelo ya lo define como boolean por defecto
+
+        if (errores != null) {
+            throw new DatosInvalidosException(errores);
+        }
+    }
+
+    // ----------------------------------------------------
+    // VALIDACIONES DE MOVIMIENTO (cantidad tal como llega en la petición)
+    // ----------------------------------------------------
+    public static void validarMovimiento(Movimiento movimiento) {
+
+        if (movimiento == null) {
+            throw new IllegalArgumentException("El movimiento no puede ser nulo.");
+        }
+
+        Map<String, String> errores = null;
+
+        if (movimiento.getIdReferencia() == null) {
+            errores = agregar(errores, "idReferencia", REFERENCIA_OBLIGATORIA);
+        }
+
+        if (movimiento.getTipo() == null) {
+            errores = agregar(errores, "tipo", TIPO_MOVIMIENTO_OBLIGATORIO);
+        } else if (movimiento.getTipo() == TipoMovimiento.AJUSTE) {
+            if (movimiento.getCantidad() == null || movimiento.getCantidad() == 0) {
+                errores = agregar(errores, "cantidad", CANTIDAD_AJUSTE);
+            }
+        } else if (movimiento.getCantidad() == null || movimiento.getCantidad() <= 0) {
+            errores = agregar(errores, "cantidad", CANTIDAD_POSITIVA);
+        }
+
+        if (movimiento.getObservacion() != null
+                && movimiento.getObservacion().length() > LONGITUD_MAXIMA_OBSERVACION) {
+            errores = agregar(errores, "observacion", OBSERVACION_LARGA);
+        }
+
+        if (errores != null) {
+            throw new DatosInvalidosException(errores);
+        }
+    }
+
+    private static Map<String, String> agregar(Map<String, String> errores, String campo, String mensaje) {
+        Map<String, String> resultado = errores != null ? errores : new LinkedHashMap<>();
+        resultado.put(campo, mensaje);
+        return resultado;
     }
 }
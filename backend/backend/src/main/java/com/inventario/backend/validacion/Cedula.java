@@ -0,0 +1,25 @@
+package com.inventario.backend.validacion;
+
+import com.inventario.backend.utils.ValidadorDatos;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Cédula de 6 a 10 dígitos (ReglasValidacion.esCedula)
+@Documented
+@Constraint(validatedBy = ValidadoresRegla.CedulaValidator.class)
+@Target({ ElementType.FIELD, ElementType.PARAMETER })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Cedula {
+
+    String message() default ValidadorDatos.CEDULA_INVALIDA;
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,25 @@
+package com.inventario.backend.validacion;
+
+import com.inventario.backend.utils.ValidadorDatos;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Código de referencia RF + números (ReglasValidacion.esCodigoRF)
+@Documented
+@Constraint(validatedBy = ValidadoresRegla.CodigoRFValidator.class)
+@Target({ ElementType.FIELD, ElementType.PARAMETER })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface CodigoRF {
+
+    String message() default ValidadorDatos.CODIGO_RF_INVALIDO;
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
@@ -0,0 +1,25 @@
+package com.inventario.backend.validacion;
+
+import com.inventario.backend.utils.ValidadorDatos;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Correo electrónico (ReglasValidacion.esCorreo)
+@Documented
+@Constraint(validatedBy = ValidadoresRegla.CorreoValidator.class)
+@Target({ ElementType.FIELD, ElementType.PARAMETER })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Correo {
+
+    String message() default ValidadorDatos.CORREO_INVALIDO;
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
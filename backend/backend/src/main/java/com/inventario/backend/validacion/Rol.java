@@ -0,0 +1,25 @@
+package com.inventario.backend.validacion;
+
+import com.inventario.backend.utils.ValidadorDatos;
+import jakarta.validation.Constraint;
+import jakarta.validation.Payload;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+// Rol ADMIN o TECNICO si se envía (ReglasValidacion.esRol)
+@Documented
+@Constraint(validatedBy = ValidadoresRegla.RolValidator.class)
+@Target({ ElementType.FIELD, ElementType.PARAMETER })
+@Retention(RetentionPolicy.RUNTIME)
+public @interface Rol {
+
+    String message() default ValidadorDatos.ROL_INVALIDO;
+
+    Class<?>[] groups() default {};
+
+    Class<? extends Payload>[] payload() default {};
+}
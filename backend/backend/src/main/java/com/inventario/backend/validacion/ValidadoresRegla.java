@@ -0,0 +1,43 @@
+package com.inventario.backend.validacion;
+
+import com.inventario.backend.utils.ReglasValidacion;
+import jakarta.validation.ConstraintValidator;
+import jakarta.validation.ConstraintValidatorContext;
+
+// Adaptadores de Bean Validation sobre ReglasValidacion: las anotaciones y
+// ValidadorDatos comparten exactamente la misma implementación de cada regla.
+public final class ValidadoresRegla {
+
+    private ValidadoresRegla() {
+    }
+
+    public static class CedulaValidator implements ConstraintValidator<Cedula, String> {
+        @Override
+        public boolean isValid(String valor, ConstraintValidatorContext contexto) {
+            return ReglasValidacion.esCedula(valor);
+        }
+    }
+
+    public static class CorreoValidator implements ConstraintValidator<Correo, String> {
+        @Override
+        public boolean isValid(String valor, ConstraintValidatorContext contexto) {
+            return ReglasValidacion.esCorreo(valor);
+        }
+    }
+
+    public static class CodigoRFValidator implements ConstraintValidator<CodigoRF, String> {
+        @Override
+        public boolean isValid(String valor, ConstraintValidatorContext contexto) {
+            return ReglasValidacion.esCodigoRF(valor);
+        }
+    }
+
+    //  Sin rol es válido: un TECNICO edita su perfil sin enviarlo (conserva el suyo).
+    //  Al registrar, ValidadorDatos exige que venga
+    public static class RolValidator implements ConstraintValidator<Rol, String> {
+        @Override
+        public boolean isValid(String valor, ConstraintValidatorContext contexto) {
+            return valor == null || ReglasValidacion.esRol(valor);
+        }
+    }
+}
@@ -0,0 +1,27 @@
+-- Revocación de sesiones: cada token lleva la version_token del usuario al emitirse.
+-- Desactivar al usuario o cambiar su rol, cédula o contraseña la incrementa y los
+-- tokens anteriores dejan de valer aunque no hayan expirado.
+
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS version_token INTEGER NOT NULL DEFAULT 0;
+
+-- La versión de sesión no forma parte de los eventos de outbox (V8)
+CREATE OR REPLACE FUNCTION outbox_usuarios() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO outbox (secuencia, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, 'usuario', n.id_usuario, 'registrado',
+               to_jsonb(n) - 'contrasena' - 'secuencia_cambio' - 'version_token'
+        FROM nuevas n;
+    ELSE
+        INSERT INTO outbox (secuencia, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, 'usuario', n.id_usuario,
+               CASE WHEN a.activo AND NOT n.activo THEN 'desactivado'
+                    WHEN n.activo AND NOT a.activo THEN 'activado'
+                    ELSE 'actualizado' END,
+               to_jsonb(n) - 'contrasena' - 'secuencia_cambio' - 'version_token'
+        FROM nuevas n JOIN anteriores a ON a.id_usuario = n.id_usuario
+        WHERE n.secuencia_cambio IS DISTINCT FROM a.secuencia_cambio;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
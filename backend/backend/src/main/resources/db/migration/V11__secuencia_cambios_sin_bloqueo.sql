@@ -0,0 +1,83 @@
+-- Número de cambio sin contador bloqueado (reemplaza el de V3).
+-- En V3 cada escritura incrementaba una sola fila y la mantenía bloqueada hasta su COMMIT:
+-- todas las transacciones que escriben referencias o usuarios se hacían en fila, y una que
+-- ya tenía el contador y esperaba una fila bloqueada por otra podía terminar en deadlock.
+--
+-- Ahora cada fila guarda un número de una SEQUENCE (sin bloqueo, puede dejar huecos) y la
+-- transacción que la escribió. /changes y outbox ordenan por (transaccion_cambio, secuencia_cambio)
+-- y solo leen transacciones anteriores a pg_snapshot_xmin: todas terminaron y ninguna nueva
+-- puede tener un número de transacción menor, así un cliente nunca salta un cambio aún no visible.
+-- Costo: mientras una transacción de escritura siga abierta, los cambios posteriores esperan
+-- a que termine para salir en /changes (se retrasan, no se pierden).
+--
+-- Las filas anteriores quedan con transacción 0: un token viejo (solo el número) equivale a
+-- (0, número) y sigue siendo válido.
+
+ALTER TABLE secuencia_cambios RENAME TO secuencia_cambios_anterior;
+CREATE SEQUENCE secuencia_cambios;
+SELECT setval('secuencia_cambios', valor + 1, false) FROM secuencia_cambios_anterior WHERE id = 1;
+DROP TABLE secuencia_cambios_anterior;
+
+ALTER TABLE referencias ADD COLUMN IF NOT EXISTS transaccion_cambio BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS transaccion_cambio BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE outbox ADD COLUMN IF NOT EXISTS transaccion BIGINT NOT NULL DEFAULT 0;
+
+CREATE OR REPLACE FUNCTION registrar_cambio() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND ROW(NEW.*) IS NOT DISTINCT FROM ROW(OLD.*) THEN
+        RETURN NEW;
+    END IF;
+    NEW.secuencia_cambio := nextval('secuencia_cambios');
+    NEW.transaccion_cambio := pg_current_xact_id()::text::bigint;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Los eventos de outbox llevan la transacción del cambio (mismo orden que /changes)
+CREATE OR REPLACE FUNCTION outbox_referencias() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO outbox (secuencia, transaccion, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, n.transaccion_cambio, 'referencia', n.id_referencia, 'registrada',
+               to_jsonb(n) - 'secuencia_cambio' - 'transaccion_cambio' - 'busqueda_codigo' - 'busqueda_nombre'
+        FROM nuevas n;
+    ELSE
+        INSERT INTO outbox (secuencia, transaccion, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, n.transaccion_cambio, 'referencia', n.id_referencia,
+               CASE WHEN a.activo AND NOT n.activo THEN 'desactivada'
+                    WHEN n.activo AND NOT a.activo THEN 'activada'
+                    ELSE 'actualizada' END,
+               to_jsonb(n) - 'secuencia_cambio' - 'transaccion_cambio' - 'busqueda_codigo' - 'busqueda_nombre'
+        FROM nuevas n JOIN anteriores a ON a.id_referencia = n.id_referencia
+        WHERE n.secuencia_cambio IS DISTINCT FROM a.secuencia_cambio;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+CREATE OR REPLACE FUNCTION outbox_usuarios() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO outbox (secuencia, transaccion, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, n.transaccion_cambio, 'usuario', n.id_usuario, 'registrado',
+               to_jsonb(n) - 'contrasena' - 'secuencia_cambio' - 'transaccion_cambio' - 'version_token'
+        FROM nuevas n;
+    ELSE
+        INSERT INTO outbox (secuencia, transaccion, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, n.transaccion_cambio, 'usuario', n.id_usuario,
+               CASE WHEN a.activo AND NOT n.activo THEN 'desactivado'
+                    WHEN n.activo AND NOT a.activo THEN 'activado'
+                    ELSE 'actualizado' END,
+               to_jsonb(n) - 'contrasena' - 'secuencia_cambio' - 'transaccion_cambio' - 'version_token'
+        FROM nuevas n JOIN anteriores a ON a.id_usuario = n.id_usuario
+        WHERE n.secuencia_cambio IS DISTINCT FROM a.secuencia_cambio;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP INDEX IF EXISTS idx_referencias_secuencia_cambio;
+DROP INDEX IF EXISTS idx_usuarios_secuencia_cambio;
+CREATE INDEX IF NOT EXISTS idx_referencias_cambio ON referencias (transaccion_cambio, secuencia_cambio);
+CREATE INDEX IF NOT EXISTS idx_usuarios_cambio ON usuarios (transaccion_cambio, secuencia_cambio);
+CREATE INDEX IF NOT EXISTS idx_outbox_transaccion ON outbox (transaccion, secuencia);
@@ -0,0 +1,15 @@
+-- Historial de movimientos sin saltos (mismo horizonte que V11 para /changes).
+-- /movimientos?since= avanzaba por id_movimiento, pero dos lotes concurrentes confirman en
+-- cualquier orden: un lector podía pasar un id aún no confirmado y no volver a verlo.
+-- Cada movimiento guarda ahora la transacción que lo insertó; el historial ordena por
+-- (transaccion, id_movimiento) y solo lee transacciones anteriores a pg_snapshot_xmin.
+--
+-- Los movimientos anteriores quedan con transacción 0: un token viejo (solo el id) equivale a
+-- (0, id) y sigue siendo válido.
+
+ALTER TABLE movimientos ADD COLUMN IF NOT EXISTS transaccion BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE movimientos ALTER COLUMN transaccion SET DEFAULT pg_current_xact_id()::text::bigint;
+
+-- Historial de una referencia en orden de transacción; la reconstrucción sigue usando id_referencia
+DROP INDEX IF EXISTS idx_movimientos_referencia;
+CREATE INDEX IF NOT EXISTS idx_movimientos_referencia ON movimientos (id_referencia, transaccion, id_movimiento);
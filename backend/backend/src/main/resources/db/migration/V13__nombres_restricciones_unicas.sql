@@ -0,0 +1,40 @@
+-- Nombres fijos para las restricciones únicas de V1.
+-- Las bases creadas antes por Hibernate (ddl-auto=update) tienen estas restricciones con nombres
+-- generados (uk...), y V1 no las toca (IF NOT EXISTS). El servicio distingue un código duplicado
+-- de un nombre duplicado por el nombre de la restricción (RestriccionesBd), así que se renombran
+-- a los que PostgreSQL da por defecto: <tabla>_<columna>_key. En bases creadas por V1 no cambia nada.
+
+DO $$
+DECLARE
+    esperada RECORD;
+    actual   TEXT;
+BEGIN
+    FOR esperada IN
+        SELECT * FROM (VALUES
+            ('referencias', 'codigo', 'referencias_codigo_key'),
+            ('referencias', 'nombre', 'referencias_nombre_key'),
+            ('usuarios', 'cedula', 'usuarios_cedula_key'),
+            ('usuarios', 'correo', 'usuarios_correo_key')
+        ) AS r (tabla, columna, nombre)
+    LOOP
+        IF EXISTS (SELECT 1 FROM pg_constraint
+                   WHERE conrelid = esperada.tabla::regclass AND conname = esperada.nombre) THEN
+            CONTINUE;
+        END IF;
+
+        -- UNIQUE sobre esa sola columna
+        SELECT c.conname INTO actual
+        FROM pg_constraint c
+        JOIN pg_attribute a ON a.attrelid = c.conrelid AND a.attnum = c.conkey[1]
+        WHERE c.conrelid = esperada.tabla::regclass
+          AND c.contype = 'u'
+          AND array_length(c.conkey, 1) = 1
+          AND a.attname = esperada.columna
+        LIMIT 1;
+
+        IF actual IS NOT NULL THEN
+            EXECUTE format('ALTER TABLE %I RENAME CONSTRAINT %I TO %I', esperada.tabla, actual, esperada.nombre);
+        END IF;
+    END LOOP;
+END;
+$$;
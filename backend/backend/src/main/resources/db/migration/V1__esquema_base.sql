@@ -0,0 +1,19 @@
+-- Esquema que hasta ahora creaba Hibernate (ddl-auto=update).
+-- IF NOT EXISTS: en bases existentes las tablas ya están y esta versión no cambia nada.
+
+CREATE TABLE IF NOT EXISTS usuarios (
+    id_usuario  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    nombre      VARCHAR(255) NOT NULL,
+    cedula      VARCHAR(255) NOT NULL UNIQUE,
+    correo      VARCHAR(255) NOT NULL UNIQUE,
+    contrasena  VARCHAR(255) NOT NULL,
+    rol         VARCHAR(255) NOT NULL,
+    activo      BOOLEAN NOT NULL DEFAULT TRUE
+);
+
+CREATE TABLE IF NOT EXISTS referencias (
+    id_referencia  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    codigo         VARCHAR(255) NOT NULL UNIQUE,
+    nombre         VARCHAR(255) NOT NULL UNIQUE,
+    activo         BOOLEAN NOT NULL DEFAULT TRUE
+);
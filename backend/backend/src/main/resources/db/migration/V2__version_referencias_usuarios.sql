@@ -0,0 +1,5 @@
+-- Control de concurrencia optimista: cada escritura incrementa version.
+-- Se expone como ETag (If-None-Match -> 304, If-Match -> 412).
+
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE referencias ADD COLUMN IF NOT EXISTS version BIGINT NOT NULL DEFAULT 0;
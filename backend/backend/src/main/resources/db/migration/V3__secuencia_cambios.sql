@@ -0,0 +1,41 @@
+-- Número de cambio global y monótono para la sincronización incremental
+-- (GET /api/referencias/changes?since=<token>).
+-- El contador es una sola fila: quien lo incrementa la mantiene bloqueada hasta su COMMIT,
+-- así los números se confirman en orden y un cliente nunca salta un cambio aún no visible.
+
+CREATE TABLE IF NOT EXISTS secuencia_cambios (
+    id     SMALLINT PRIMARY KEY CHECK (id = 1),
+    valor  BIGINT NOT NULL
+);
+
+INSERT INTO secuencia_cambios (id, valor) VALUES (1, 0) ON CONFLICT (id) DO NOTHING;
+
+ALTER TABLE referencias ADD COLUMN IF NOT EXISTS secuencia_cambio BIGINT NOT NULL DEFAULT 0;
+ALTER TABLE usuarios ADD COLUMN IF NOT EXISTS secuencia_cambio BIGINT NOT NULL DEFAULT 0;
+
+-- Cualquier INSERT o UPDATE real (JPA o JDBC) recibe el siguiente número
+CREATE OR REPLACE FUNCTION registrar_cambio() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'UPDATE' AND ROW(NEW.*) IS NOT DISTINCT FROM ROW(OLD.*) THEN
+        RETURN NEW;
+    END IF;
+    UPDATE secuencia_cambios SET valor = valor + 1 WHERE id = 1
+        RETURNING valor INTO NEW.secuencia_cambio;
+    RETURN NEW;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS referencias_cambio ON referencias;
+CREATE TRIGGER referencias_cambio BEFORE INSERT OR UPDATE ON referencias
+    FOR EACH ROW EXECUTE FUNCTION registrar_cambio();
+
+DROP TRIGGER IF EXISTS usuarios_cambio ON usuarios;
+CREATE TRIGGER usuarios_cambio BEFORE INSERT OR UPDATE ON usuarios
+    FOR EACH ROW EXECUTE FUNCTION registrar_cambio();
+
+-- Las filas existentes se numeran una vez (el disparador asigna el número)
+UPDATE referencias SET secuencia_cambio = -1 WHERE secuencia_cambio = 0;
+UPDATE usuarios SET secuencia_cambio = -1 WHERE secuencia_cambio = 0;
+
+CREATE INDEX IF NOT EXISTS idx_referencias_secuencia_cambio ON referencias (secuencia_cambio);
+CREATE INDEX IF NOT EXISTS idx_usuarios_secuencia_cambio ON usuarios (secuencia_cambio);
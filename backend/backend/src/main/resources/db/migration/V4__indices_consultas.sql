@@ -0,0 +1,23 @@
+-- Índices para las consultas de los repositorios y del listado paginado.
+-- Las búsquedas exactas (findByCodigo, findByNombre, findByCedula, findByCorreo y los IN
+-- de la importación) ya usan los índices de las restricciones UNIQUE de V1.
+
+-- Listados por estado ordenados por id (findByActivo*, /pagina?activo=...).
+-- Parciales: cada uno solo guarda las filas de su estado.
+CREATE INDEX IF NOT EXISTS idx_referencias_activas_id ON referencias (id_referencia) WHERE activo;
+CREATE INDEX IF NOT EXISTS idx_referencias_inactivas_id ON referencias (id_referencia) WHERE NOT activo;
+
+-- Paginación por código o nombre de las activas (la consulta más frecuente de la app)
+CREATE INDEX IF NOT EXISTS idx_referencias_activas_codigo ON referencias (codigo) WHERE activo;
+CREATE INDEX IF NOT EXISTS idx_referencias_activas_nombre ON referencias (nombre) WHERE activo;
+
+-- Filtro por prefijo: codigo LIKE 'RF1%' OR upper(nombre) LIKE 'TOR%'.
+-- Con una intercalación distinta de C los índices normales no sirven para LIKE.
+CREATE INDEX IF NOT EXISTS idx_referencias_codigo_prefijo ON referencias (codigo varchar_pattern_ops);
+CREATE INDEX IF NOT EXISTS idx_referencias_nombre_prefijo ON referencias (upper(nombre) varchar_pattern_ops);
+
+-- Bases creadas por Hibernate con ddl-auto=update: activo podía quedar sin NOT NULL ni DEFAULT
+UPDATE usuarios SET activo = TRUE WHERE activo IS NULL;
+ALTER TABLE usuarios ALTER COLUMN activo SET DEFAULT TRUE, ALTER COLUMN activo SET NOT NULL;
+UPDATE referencias SET activo = TRUE WHERE activo IS NULL;
+ALTER TABLE referencias ALTER COLUMN activo SET DEFAULT TRUE, ALTER COLUMN activo SET NOT NULL;
@@ -0,0 +1,40 @@
+-- Existencias por referencia.
+-- movimientos: historial de solo inserción (entradas, salidas y ajustes), cantidad con signo.
+-- saldos: una fila por referencia con la suma de su historial, actualizada en la misma
+-- sentencia que inserta los movimientos; consultar el stock es leer una fila por clave.
+
+CREATE TABLE IF NOT EXISTS movimientos (
+    id_movimiento  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    id_referencia  BIGINT NOT NULL REFERENCES referencias (id_referencia),
+    id_usuario     BIGINT NOT NULL REFERENCES usuarios (id_usuario),
+    tipo           VARCHAR(10) NOT NULL CHECK (tipo IN ('ENTRADA', 'SALIDA', 'AJUSTE')),
+    cantidad       BIGINT NOT NULL CHECK (cantidad <> 0),
+    observacion    VARCHAR(255),
+    fecha          TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- Historial de una referencia en orden (paginación por id) y reconstrucción por rangos
+CREATE INDEX IF NOT EXISTS idx_movimientos_referencia ON movimientos (id_referencia, id_movimiento);
+
+-- Sin stock negativo: una salida mayor que el saldo hace fallar toda la sentencia
+CREATE TABLE IF NOT EXISTS saldos (
+    id_referencia         BIGINT PRIMARY KEY REFERENCES referencias (id_referencia),
+    cantidad              BIGINT NOT NULL CHECK (cantidad >= 0),
+    id_ultimo_movimiento  BIGINT NOT NULL,
+    actualizado           TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now()
+);
+
+-- El historial no se corrige: los errores se compensan con un AJUSTE
+CREATE OR REPLACE FUNCTION rechazar_cambio_movimiento() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'movimientos es de solo inserción (use un AJUSTE)';
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS movimientos_solo_insercion ON movimientos;
+CREATE TRIGGER movimientos_solo_insercion BEFORE UPDATE OR DELETE ON movimientos
+    FOR EACH ROW EXECUTE FUNCTION rechazar_cambio_movimiento();
+
+DROP TRIGGER IF EXISTS movimientos_sin_truncate ON movimientos;
+CREATE TRIGGER movimientos_sin_truncate BEFORE TRUNCATE ON movimientos
+    FOR EACH STATEMENT EXECUTE FUNCTION rechazar_cambio_movimiento();
@@ -0,0 +1,87 @@
+-- Resúmenes de movimientos por referencia y periodo (analítica del panel de inicio).
+-- Un disparador por sentencia los acumula al insertar movimientos: un lote de N movimientos
+-- hace un solo UPSERT por tabla, con una fila por (referencia, día) o (referencia, mes).
+-- Los días son en UTC (fecha AT TIME ZONE 'UTC').
+
+CREATE TABLE IF NOT EXISTS movimientos_dia (
+    id_referencia  BIGINT NOT NULL REFERENCES referencias (id_referencia),
+    dia            DATE NOT NULL,
+    entradas       BIGINT NOT NULL,
+    salidas        BIGINT NOT NULL,
+    ajustes        BIGINT NOT NULL,
+    movimientos    BIGINT NOT NULL,
+    PRIMARY KEY (id_referencia, dia)
+);
+
+-- mes = primer día del mes
+CREATE TABLE IF NOT EXISTS movimientos_mes (
+    id_referencia  BIGINT NOT NULL REFERENCES referencias (id_referencia),
+    mes            DATE NOT NULL,
+    entradas       BIGINT NOT NULL,
+    salidas        BIGINT NOT NULL,
+    ajustes        BIGINT NOT NULL,
+    movimientos    BIGINT NOT NULL,
+    PRIMARY KEY (id_referencia, mes)
+);
+
+-- Series de todas las referencias (la clave primaria cubre las de una sola)
+CREATE INDEX IF NOT EXISTS idx_movimientos_dia_dia ON movimientos_dia (dia);
+CREATE INDEX IF NOT EXISTS idx_movimientos_mes_mes ON movimientos_mes (mes);
+
+-- entradas y salidas en positivo; ajustes con signo
+CREATE OR REPLACE FUNCTION acumular_movimientos() RETURNS trigger AS $$
+BEGIN
+    INSERT INTO movimientos_dia AS r (id_referencia, dia, entradas, salidas, ajustes, movimientos)
+    SELECT id_referencia, (fecha AT TIME ZONE 'UTC')::date,
+           COALESCE(SUM(cantidad) FILTER (WHERE tipo = 'ENTRADA'), 0),
+           COALESCE(-SUM(cantidad) FILTER (WHERE tipo = 'SALIDA'), 0),
+           COALESCE(SUM(cantidad) FILTER (WHERE tipo = 'AJUSTE'), 0),
+           COUNT(*)
+    FROM nuevos
+    GROUP BY 1, 2 ORDER BY 1, 2
+    ON CONFLICT (id_referencia, dia) DO UPDATE
+        SET entradas = r.entradas + EXCLUDED.entradas,
+            salidas = r.salidas + EXCLUDED.salidas,
+            ajustes = r.ajustes + EXCLUDED.ajustes,
+            movimientos = r.movimientos + EXCLUDED.movimientos;
+
+    INSERT INTO movimientos_mes AS r (id_referencia, mes, entradas, salidas, ajustes, movimientos)
+    SELECT id_referencia, date_trunc('month', fecha AT TIME ZONE 'UTC')::date,
+           COALESCE(SUM(cantidad) FILTER (WHERE tipo = 'ENTRADA'), 0),
+           COALESCE(-SUM(cantidad) FILTER (WHERE tipo = 'SALIDA'), 0),
+           COALESCE(SUM(cantidad) FILTER (WHERE tipo = 'AJUSTE'), 0),
+           COUNT(*)
+    FROM nuevos
+    GROUP BY 1, 2 ORDER BY 1, 2
+    ON CONFLICT (id_referencia, mes) DO UPDATE
+        SET entradas = r.entradas + EXCLUDED.entradas,
+            salidas = r.salidas + EXCLUDED.salidas,
+            ajustes = r.ajustes + EXCLUDED.ajustes,
+            movimientos = r.movimientos + EXCLUDED.movimientos;
+
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS movimientos_acumular ON movimientos;
+CREATE TRIGGER movimientos_acumular AFTER INSERT ON movimientos
+    REFERENCING NEW TABLE AS nuevos
+    FOR EACH STATEMENT EXECUTE FUNCTION acumular_movimientos();
+
+-- Movimientos anteriores a esta versión
+INSERT INTO movimientos_dia (id_referencia, dia, entradas, salidas, ajustes, movimientos)
+SELECT id_referencia, (fecha AT TIME ZONE 'UTC')::date,
+       COALESCE(SUM(cantidad) FILTER (WHERE tipo = 'ENTRADA'), 0),
+       COALESCE(-SUM(cantidad) FILTER (WHERE tipo = 'SALIDA'), 0),
+       COALESCE(SUM(cantidad) FILTER (WHERE tipo = 'AJUSTE'), 0),
+       COUNT(*)
+FROM movimientos
+GROUP BY 1, 2
+ON CONFLICT (id_referencia, dia) DO NOTHING;
+
+INSERT INTO movimientos_mes (id_referencia, mes, entradas, salidas, ajustes, movimientos)
+SELECT id_referencia, date_trunc('month', dia)::date,
+       SUM(entradas), SUM(salidas), SUM(ajustes), SUM(movimientos)
+FROM movimientos_dia
+GROUP BY 1, 2
+ON CONFLICT (id_referencia, mes) DO NOTHING;
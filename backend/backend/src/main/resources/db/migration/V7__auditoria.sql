@@ -0,0 +1,34 @@
+-- Registro de auditoría: quién cambió qué usuario o referencia y cuándo.
+-- Lo escribe por lotes un hilo en segundo plano (RegistroAuditoria); la tabla es de solo inserción.
+-- fecha es la del cambio (no la de la escritura): el orden por id puede diferir un poco del de fecha.
+
+CREATE TABLE IF NOT EXISTS auditoria (
+    id_auditoria  BIGINT GENERATED BY DEFAULT AS IDENTITY PRIMARY KEY,
+    fecha         TIMESTAMP WITH TIME ZONE NOT NULL,
+    id_usuario    BIGINT,
+    entidad       VARCHAR(20) NOT NULL,
+    id_entidad    BIGINT,
+    accion        VARCHAR(30) NOT NULL,
+    detalle       JSONB
+);
+
+-- id_usuario: quien hizo el cambio (nulo si no hay sesión, por ejemplo un login fallido).
+-- Sin clave foránea: el registro debe poder escribirse aunque el usuario ya no exista.
+
+-- Consultas paginadas del más reciente al más antiguo, por entidad o por usuario
+CREATE INDEX IF NOT EXISTS idx_auditoria_entidad ON auditoria (entidad, id_entidad, id_auditoria);
+CREATE INDEX IF NOT EXISTS idx_auditoria_usuario ON auditoria (id_usuario, id_auditoria);
+
+CREATE OR REPLACE FUNCTION rechazar_cambio_auditoria() RETURNS trigger AS $$
+BEGIN
+    RAISE EXCEPTION 'auditoria es de solo inserción';
+END;
+$$ LANGUAGE plpgsql;
+
+DROP TRIGGER IF EXISTS auditoria_solo_insercion ON auditoria;
+CREATE TRIGGER auditoria_solo_insercion BEFORE UPDATE OR DELETE ON auditoria
+    FOR EACH ROW EXECUTE FUNCTION rechazar_cambio_auditoria();
+
+DROP TRIGGER IF EXISTS auditoria_sin_truncate ON auditoria;
+CREATE TRIGGER auditoria_sin_truncate BEFORE TRUNCATE ON auditoria
+    FOR EACH STATEMENT EXECUTE FUNCTION rechazar_cambio_auditoria();
@@ -0,0 +1,82 @@
+-- Bandeja de salida (outbox) para alimentar a otros sistemas sin escrituras dobles.
+-- Disparadores por sentencia escriben el evento en la misma transacción que el cambio de la
+-- referencia o el usuario (JPA, UPDATE ... RETURNING o lotes JDBC): o se confirman ambos o ninguno.
+-- secuencia es el secuencia_cambio de la fila (V3): números confirmados en orden, así un
+-- consumidor que lee por páginas con since=<última secuencia> nunca salta un evento.
+
+CREATE TABLE IF NOT EXISTS outbox (
+    secuencia    BIGINT PRIMARY KEY,
+    fecha        TIMESTAMP WITH TIME ZONE NOT NULL DEFAULT now(),
+    agregado     VARCHAR(20) NOT NULL,
+    id_agregado  BIGINT NOT NULL,
+    tipo         VARCHAR(30) NOT NULL,
+    carga        JSONB NOT NULL
+);
+
+-- Limpieza de eventos vencidos (OutboxService)
+CREATE INDEX IF NOT EXISTS idx_outbox_fecha ON outbox (fecha);
+
+-- Las actualizaciones sin cambios conservan su secuencia_cambio y no generan evento
+CREATE OR REPLACE FUNCTION outbox_referencias() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO outbox (secuencia, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, 'referencia', n.id_referencia, 'registrada',
+               to_jsonb(n) - 'secuencia_cambio'
+        FROM nuevas n;
+    ELSE
+        INSERT INTO outbox (secuencia, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, 'referencia', n.id_referencia,
+               CASE WHEN a.activo AND NOT n.activo THEN 'desactivada'
+                    WHEN n.activo AND NOT a.activo THEN 'activada'
+                    ELSE 'actualizada' END,
+               to_jsonb(n) - 'secuencia_cambio'
+        FROM nuevas n JOIN anteriores a ON a.id_referencia = n.id_referencia
+        WHERE n.secuencia_cambio IS DISTINCT FROM a.secuencia_cambio;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- La contraseña (hash) nunca sale en la carga
+CREATE OR REPLACE FUNCTION outbox_usuarios() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO outbox (secuencia, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, 'usuario', n.id_usuario, 'registrado',
+               to_jsonb(n) - 'contrasena' - 'secuencia_cambio'
+        FROM nuevas n;
+    ELSE
+        INSERT INTO outbox (secuencia, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, 'usuario', n.id_usuario,
+               CASE WHEN a.activo AND NOT n.activo THEN 'desactivado'
+                    WHEN n.activo AND NOT a.activo THEN 'activado'
+                    ELSE 'actualizado' END,
+               to_jsonb(n) - 'contrasena' - 'secuencia_cambio'
+        FROM nuevas n JOIN anteriores a ON a.id_usuario = n.id_usuario
+        WHERE n.secuencia_cambio IS DISTINCT FROM a.secuencia_cambio;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Las tablas de transición exigen un disparador por evento
+DROP TRIGGER IF EXISTS referencias_outbox_insert ON referencias;
+CREATE TRIGGER referencias_outbox_insert AFTER INSERT ON referencias
+    REFERENCING NEW TABLE AS nuevas
+    FOR EACH STATEMENT EXECUTE FUNCTION outbox_referencias();
+
+DROP TRIGGER IF EXISTS referencias_outbox_update ON referencias;
+CREATE TRIGGER referencias_outbox_update AFTER UPDATE ON referencias
+    REFERENCING OLD TABLE AS anteriores NEW TABLE AS nuevas
+    FOR EACH STATEMENT EXECUTE FUNCTION outbox_referencias();
+
+DROP TRIGGER IF EXISTS usuarios_outbox_insert ON usuarios;
+CREATE TRIGGER usuarios_outbox_insert AFTER INSERT ON usuarios
+    REFERENCING NEW TABLE AS nuevas
+    FOR EACH STATEMENT EXECUTE FUNCTION outbox_usuarios();
+
+DROP TRIGGER IF EXISTS usuarios_outbox_update ON usuarios;
+CREATE TRIGGER usuarios_outbox_update AFTER UPDATE ON usuarios
+    REFERENCING OLD TABLE AS anteriores NEW TABLE AS nuevas
+    FOR EACH STATEMENT EXECUTE FUNCTION outbox_usuarios();
@@ -0,0 +1,50 @@
+-- Búsqueda de referencias por prefijo y subcadena en PostgreSQL (antes, índice en memoria
+-- por instancia: millones de objetos en el heap y cargado solo al arrancar).
+-- pg_trgm y unaccent son extensiones de confianza: basta el permiso CREATE sobre la base.
+
+CREATE EXTENSION IF NOT EXISTS pg_trgm;
+CREATE EXTENSION IF NOT EXISTS unaccent;
+
+-- Texto sin tildes y en minúsculas. unaccent() es STABLE (depende del diccionario);
+-- con el diccionario fijo el resultado no cambia y se puede declarar IMMUTABLE.
+CREATE OR REPLACE FUNCTION normalizar_busqueda(texto TEXT) RETURNS TEXT AS $$
+    SELECT lower(public.unaccent('public.unaccent'::regdictionary, texto))
+$$ LANGUAGE sql IMMUTABLE PARALLEL SAFE STRICT;
+
+-- Columnas calculadas al escribir: la búsqueda compara columnas, sin llamar a unaccent por fila
+ALTER TABLE referencias
+    ADD COLUMN IF NOT EXISTS busqueda_codigo TEXT GENERATED ALWAYS AS (normalizar_busqueda(codigo)) STORED,
+    ADD COLUMN IF NOT EXISTS busqueda_nombre TEXT GENERATED ALWAYS AS (normalizar_busqueda(nombre)) STORED;
+
+-- Prefijos: intercalación C para que el mismo índice sirva a LIKE 'x%' y al ORDER BY
+CREATE INDEX IF NOT EXISTS idx_referencias_busqueda_codigo ON referencias (busqueda_codigo COLLATE "C");
+CREATE INDEX IF NOT EXISTS idx_referencias_busqueda_nombre ON referencias (busqueda_nombre COLLATE "C");
+
+-- Subcadenas: LIKE '%x%' con al menos un trigrama completo
+CREATE INDEX IF NOT EXISTS idx_referencias_trigramas_codigo ON referencias USING gin (busqueda_codigo gin_trgm_ops);
+CREATE INDEX IF NOT EXISTS idx_referencias_trigramas_nombre ON referencias USING gin (busqueda_nombre gin_trgm_ops);
+
+-- Las columnas de búsqueda no forman parte de los eventos de outbox (V8)
+CREATE OR REPLACE FUNCTION outbox_referencias() RETURNS trigger AS $$
+BEGIN
+    IF TG_OP = 'INSERT' THEN
+        INSERT INTO outbox (secuencia, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, 'referencia', n.id_referencia, 'registrada',
+               to_jsonb(n) - 'secuencia_cambio' - 'busqueda_codigo' - 'busqueda_nombre'
+        FROM nuevas n;
+    ELSE
+        INSERT INTO outbox (secuencia, agregado, id_agregado, tipo, carga)
+        SELECT n.secuencia_cambio, 'referencia', n.id_referencia,
+               CASE WHEN a.activo AND NOT n.activo THEN 'desactivada'
+                    WHEN n.activo AND NOT a.activo THEN 'activada'
+                    ELSE 'actualizada' END,
+               to_jsonb(n) - 'secuencia_cambio' - 'busqueda_codigo' - 'busqueda_nombre'
+        FROM nuevas n JOIN anteriores a ON a.id_referencia = n.id_referencia
+        WHERE n.secuencia_cambio IS DISTINCT FROM a.secuencia_cambio;
+    END IF;
+    RETURN NULL;
+END;
+$$ LANGUAGE plpgsql;
+
+-- Estadísticas de las columnas nuevas: sin ellas el planificador estima mal los LIKE
+ANALYZE referencias;
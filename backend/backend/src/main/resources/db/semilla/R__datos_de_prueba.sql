@@ -0,0 +1,37 @@
+-- Datos de prueba para medir rendimiento (perfil semilla, nunca en producción):
+--   ${referencias} referencias (RF1..RFn, una de cada diez inactiva)
+--   ${usuarios} usuarios TECNICO con contraseña Semilla123*
+-- Repetible: vuelve a ejecutarse si cambia el archivo o las cantidades, y solo agrega lo que falta.
+
+-- El disparador numera fila por fila; para millones de filas se desactiva y cada fila toma
+-- su número de la secuencia (V11) con la transacción de esta carga.
+ALTER TABLE referencias DISABLE TRIGGER referencias_cambio;
+ALTER TABLE usuarios DISABLE TRIGGER usuarios_cambio;
+
+-- Los datos de prueba no son eventos para otros sistemas: sin filas en outbox
+ALTER TABLE referencias DISABLE TRIGGER referencias_outbox_insert;
+ALTER TABLE usuarios DISABLE TRIGGER usuarios_outbox_insert;
+
+INSERT INTO referencias (codigo, nombre, activo, version, secuencia_cambio, transaccion_cambio)
+SELECT 'RF' || g, 'Referencia de prueba ' || g, g % 10 <> 0, 0,
+       nextval('secuencia_cambios'), pg_current_xact_id()::text::bigint
+FROM generate_series(1, ${referencias}) AS g
+ON CONFLICT DO NOTHING;
+
+-- Un mismo hash BCrypt para todos: calcular 100k hashes tardaría más de una hora
+INSERT INTO usuarios (nombre, cedula, correo, contrasena, rol, activo, version, secuencia_cambio, transaccion_cambio)
+SELECT 'Usuario de prueba ' || g,
+       (1000000000 + g)::text,
+       'usuario' || g || '@semilla.local',
+       '$2a$10$PYP.lB7gs4RnsLoAoKUchONTbfq509eCa.flmfL2IwHKF1HpTOY5y',
+       'TECNICO', TRUE, 0, nextval('secuencia_cambios'), pg_current_xact_id()::text::bigint
+FROM generate_series(1, ${usuarios}) AS g
+ON CONFLICT DO NOTHING;
+
+ALTER TABLE referencias ENABLE TRIGGER referencias_cambio;
+ALTER TABLE usuarios ENABLE TRIGGER usuarios_cambio;
+ALTER TABLE referencias ENABLE TRIGGER referencias_outbox_insert;
+ALTER TABLE usuarios ENABLE TRIGGER usuarios_outbox_insert;
+
+ANALYZE referencias;
+ANALYZE usuarios;
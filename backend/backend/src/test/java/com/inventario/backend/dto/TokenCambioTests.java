@@ -0,0 +1,36 @@
+package com.inventario.backend.dto;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class TokenCambioTests {
+
+    @Test
+    void sinTokenEmpiezaDesdeElPrincipio() {
+        assertEquals(TokenCambio.INICIO, TokenCambio.leer(null));
+        assertEquals(TokenCambio.INICIO, TokenCambio.leer("  "));
+    }
+
+    @Test
+    void unNumeroSoloEsUnTokenAnteriorAV11() {
+        assertEquals(new TokenCambio(0, 1100018), TokenCambio.leer("1100018"));
+        assertEquals("1100018", new TokenCambio(0, 1100018).toString());
+    }
+
+    @Test
+    void transaccionYSecuenciaSeLeenComoSeEscriben() {
+        TokenCambio token = new TokenCambio(36024, 1100062);
+
+        assertEquals("36024.1100062", token.toString());
+        assertEquals(token, TokenCambio.leer(token.toString()));
+    }
+
+    @Test
+    void tokensMalFormadosSonDatosInvalidos() {
+        for (String token : new String[]{"abc", "1.", ".5", "1.x", "-3", "2.-1", "1.2.3"}) {
+            assertThrows(IllegalArgumentException.class, () -> TokenCambio.leer(token), token);
+        }
+    }
+}
@@ -0,0 +1,235 @@
+package com.inventario.backend.metricas;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.inventario.backend.service.ContrasenaService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.test.context.ActiveProfiles;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.asyncDispatch;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.put;
+
+// Sentencias SQL por petición de los endpoints principales, leídas del ContadorSentencias.
+// El perfil test ya falla si se supera un @PresupuestoSql; aquí se fija el número exacto
+// para que una consulta de más (o una caché que deja de funcionar) se note en la prueba.
+// Perfil test: base propia (inventario_test, ver application-test.properties). Cada prueba borra
+// al final las filas que creó, por sus ids.
+@SpringBootTest
+@AutoConfigureMockMvc
+@ActiveProfiles("test")
+class SentenciasPorEndpointTests {
+
+    private static final String CONTRASENA = "Prueba123*";
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private JdbcTemplate jdbcTemplate;
+
+    @Autowired
+    private ContrasenaService contrasenaService;
+
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    private String ejecucion;
+    private String cedulaAdmin;
+    private String token;
+    private final List<Long> usuarios = new ArrayList<>();
+    private final List<Long> referencias = new ArrayList<>();
+
+    // ----------------------------------------------------
+    // DATOS DE LA PRUEBA
+    // ----------------------------------------------------
+    @BeforeEach
+    void preparar() throws Exception {
+        ejecucion = String.format("%06d", System.nanoTime() % 1_000_000);
+        cedulaAdmin = "71" + ejecucion;
+        usuarios.add(jdbcTemplate.queryForObject("INSERT INTO usuarios (nombre, cedula, correo, contrasena, rol, activo)"
+                        + " VALUES (?, ?, ?, ?, 'ADMIN', true) RETURNING id_usuario", Long.class,
+                "Administrador prueba " + ejecucion, cedulaAdmin, "admin" + ejecucion + "@prueba.local",
+                contrasenaService.codificar(CONTRASENA).join()));
+
+        // El login deja la versión del token en caché: las demás peticiones no la consultan
+        token = leer(ejecutar(post("/api/usuarios/login"), Map.of("cedula", cedulaAdmin, "contrasena", CONTRASENA)))
+                .get("token").asText();
+    }
+
+    @AfterEach
+    void limpiar() {
+        for (Long id : referencias) {
+            jdbcTemplate.update("DELETE FROM outbox WHERE agregado = 'referencia' AND id_agregado = ?", id);
+            jdbcTemplate.update("DELETE FROM referencias WHERE id_referencia = ?", id);
+        }
+        for (Long id : usuarios) {
+            jdbcTemplate.update("DELETE FROM outbox WHERE agregado = 'usuario' AND id_agregado = ?", id);
+            jdbcTemplate.update("DELETE FROM usuarios WHERE id_usuario = ?", id);
+        }
+    }
+
+    // ----------------------------------------------------
+    // USUARIOS
+    // ----------------------------------------------------
+    @Test
+    void loginLeeElUsuarioConUnaSentencia() throws Exception {
+        MvcResult resultado = ejecutar(post("/api/usuarios/login"),
+                Map.of("cedula", cedulaAdmin, "contrasena", CONTRASENA));
+
+        assertEquals(1, sentencias(resultado));
+    }
+
+    @Test
+    void registrarUsuarioConsultaDuplicadosEInserta() throws Exception {
+        MvcResult resultado = ejecutar(conToken(post("/api/usuarios/registrar")), Map.of(
+                "nombre", "Técnico prueba", "cedula", "72" + ejecucion,
+                "correo", "tecnico" + ejecucion + "@prueba.local", "contrasena", CONTRASENA, "rol", "TECNICO"));
+        usuarios.add(leer(resultado).get("idUsuario").asLong());
+
+        assertEquals(2, sentencias(resultado));
+    }
+
+    @Test
+    void actualizarUsuarioLeeYActualiza() throws Exception {
+        Long id = leer(ejecutar(conToken(post("/api/usuarios/registrar")), Map.of(
+                "nombre", "Técnico prueba", "cedula", "72" + ejecucion,
+                "correo", "tecnico" + ejecucion + "@prueba.local", "contrasena", CONTRASENA, "rol", "TECNICO")))
+                .get("idUsuario").asLong();
+        usuarios.add(id);
+
+        MvcResult resultado = ejecutar(conToken(put("/api/usuarios/" + id)), Map.of(
+                "nombre", "Técnico prueba editado", "cedula", "72" + ejecucion,
+                "correo", "tecnico" + ejecucion + "@prueba.local", "rol", "TECNICO"));
+
+        assertEquals(2, sentencias(resultado));
+    }
+
+    @Test
+    void registrarLoteDeUsuariosConsultaDuplicadosEInsertaUnaVez() throws Exception {
+        MvcResult resultado = ejecutar(conToken(post("/api/usuarios/lote/registrar")), new Object[]{
+                Map.of("nombre", "Lote uno", "cedula", "73" + ejecucion, "correo", "lote1" + ejecucion + "@prueba.local",
+                        "contrasena", CONTRASENA, "rol", "TECNICO"),
+                Map.of("nombre", "Lote dos", "cedula", "74" + ejecucion, "correo", "lote2" + ejecucion + "@prueba.local",
+                        "contrasena", CONTRASENA, "rol", "TECNICO")});
+
+        for (JsonNode elemento : leer(resultado).get("resultados")) {
+            usuarios.add(elemento.get("usuario").get("idUsuario").asLong());
+        }
+        assertEquals(2, leer(resultado).get("exitosos").asInt());
+        assertEquals(2, sentencias(resultado));
+    }
+
+    @Test
+    void cambiosDeUsuariosEsUnaConsulta() throws Exception {
+        MvcResult resultado = ejecutar(conToken(get("/api/usuarios/changes?tamano=10")), null);
+
+        assertEquals(1, sentencias(resultado));
+    }
+
+    // ----------------------------------------------------
+    // REFERENCIAS
+    // ----------------------------------------------------
+    @Test
+    void registrarReferenciaEsUnInsert() throws Exception {
+        MvcResult resultado = ejecutar(conToken(post("/api/referencias/registrar")),
+                Map.of("codigo", "RF7" + ejecucion + "1", "nombre", "Referencia prueba " + ejecucion));
+        referencias.add(leer(resultado).get("idReferencia").asLong());
+
+        assertEquals(1, sentencias(resultado));
+    }
+
+    @Test
+    void actualizarReferenciaEsUnUpdate() throws Exception {
+        Long id = registrarReferencia("1");
+
+        MvcResult resultado = ejecutar(conToken(put("/api/referencias/" + id)),
+                Map.of("codigo", "RF7" + ejecucion + "1", "nombre", "Referencia prueba editada " + ejecucion));
+
+        assertEquals(1, sentencias(resultado));
+    }
+
+    @Test
+    void referenciaPorIdSeLeeUnaVezYLuegoSaleDeLaCache() throws Exception {
+        // Insertada sin pasar por el servicio: registrar ya la dejaría en la caché
+        Long id = jdbcTemplate.queryForObject(
+                "INSERT INTO referencias (codigo, nombre) VALUES (?, ?) RETURNING id_referencia", Long.class,
+                "RF7" + ejecucion + "2", "Referencia prueba " + ejecucion + "-2");
+        referencias.add(id);
+
+        MvcResult primera = ejecutar(conToken(get("/api/referencias/" + id)), null);
+        MvcResult segunda = ejecutar(conToken(get("/api/referencias/" + id)), null);
+
+        assertEquals(1, sentencias(primera));
+        assertEquals(0, sentencias(segunda));
+    }
+
+    @Test
+    void listadosDeReferenciasSonUnaConsulta() throws Exception {
+        registrarReferencia("1");
+
+        assertEquals(1, sentencias(ejecutar(conToken(get("/api/referencias")), null)));
+        assertEquals(1, sentencias(ejecutar(conToken(get("/api/referencias/pagina?tamano=20")), null)));
+        assertEquals(1, sentencias(ejecutar(conToken(get("/api/referencias/buscar?q=RF7" + ejecucion)), null)));
+        assertEquals(1, sentencias(ejecutar(conToken(get("/api/referencias/changes?tamano=10")), null)));
+    }
+
+    // ----------------------------------------------------
+    // HELPERS
+    // ----------------------------------------------------
+    private Long registrarReferencia(String sufijo) throws Exception {
+        Long id = leer(ejecutar(conToken(post("/api/referencias/registrar")), Map.of(
+                "codigo", "RF7" + ejecucion + sufijo, "nombre", "Referencia prueba " + ejecucion + "-" + sufijo)))
+                .get("idReferencia").asLong();
+        referencias.add(id);
+        return id;
+    }
+
+    private MockHttpServletRequestBuilder conToken(MockHttpServletRequestBuilder peticion) {
+        return peticion.header(HttpHeaders.AUTHORIZATION, "Bearer " + token);
+    }
+
+    // Ejecuta la petición (y su despacho asíncrono si lo hay) y exige una respuesta 2xx
+    private MvcResult ejecutar(MockHttpServletRequestBuilder peticion, Object cuerpo) throws Exception {
+        if (cuerpo != null) {
+            peticion.contentType(MediaType.APPLICATION_JSON).content(objectMapper.writeValueAsString(cuerpo));
+        }
+        MvcResult resultado = mockMvc.perform(peticion).andReturn();
+        if (resultado.getRequest().isAsyncStarted()) {
+            resultado = mockMvc.perform(asyncDispatch(resultado)).andReturn();
+        }
+        int estado = resultado.getResponse().getStatus();
+        String respuesta = resultado.getResponse().getContentAsString();
+        assertTrue(estado >= 200 && estado < 300, () -> "HTTP " + estado + ": " + respuesta);
+        return resultado;
+    }
+
+    private JsonNode leer(MvcResult resultado) throws Exception {
+        return objectMapper.readTree(resultado.getResponse().getContentAsString());
+    }
+
+    private static int sentencias(MvcResult resultado) {
+        ContadorSentencias contador = FiltroMetricasPeticion.contador(resultado.getRequest());
+        assertNotNull(contador, "La petición no pasó por FiltroMetricasPeticion");
+        return contador.getSentencias();
+    }
+}
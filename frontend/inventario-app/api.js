@@ -1,6 +1,21 @@
 import axios from 'axios';
+import AsyncStorage from '@react-native-async-storage/async-storage';
 
 export const api = axios.create({
   baseURL: 'http://192.168.1.10:8080', // 👈 IP del backend (cámbiala si es otra)
   timeout: 5000,
 });
+
+// 🔐 Adjunta el token de sesión (emitido en el login) a cada petición
+api.interceptors.request.use(async (config) => {
+  const token = await AsyncStorage.getItem('token');
+  if (token) {
+    config.headers = config.headers ?? {};
+    config.headers.Authorization = `Bearer ${token}`;
+  }
+  return config;
+});
+
+// 🔁 If-Match con la versión leída: el backend responde 412 si otro usuario ya modificó el registro
+export const cabeceraVersion = (version) =>
+  version === undefined || version === null ? {} : { 'If-Match': `"${version}"` };
@@ -13,19 +13,20 @@ import AsyncStorage from "@react-native-async-storage/async-storage";
 import { useRouter } from "expo-router";
 
 import {
-  obtenerReferenciasActivas,
-  obtenerReferenciasInactivas,
+  obtenerPaginaReferencias,
   obtenerReferenciaPorId,
   actualizarReferencia,
 } from "../../services/referenciaService";
+import { suscribirEventos } from "../../services/eventos";
 
 export default function ListaReferencias() {
   const [referencias, setReferencias] = useState<any[]>([]);
-  const [referenciasFiltradas, setReferenciasFiltradas] = useState<any[]>([]);
+  const [siguienteCursor, setSiguienteCursor] = useState<string | null>(null);
   const [searchCodigo, setSearchCodigo] = useState("");
   const [usuarioActual, setUsuarioActual] = useState<any | null>(null);
 
   const [loadingLista, setLoadingLista] = useState(false);
+  const [loadingMas, setLoadingMas] = useState(false);
   const [loadingAccionId, setLoadingAccionId] = useState<number | null>(null);
 
   const [mostrarActivas, setMostrarActivas] = useState(true);
@@ -56,19 +57,48 @@ export default function ListaReferencias() {
     verificarYcargar();
   }, [mostrarActivas]);
 
-  const cargarReferencias = async () => {
-    try {
-      setLoadingLista(true);
-      let lista = mostrarActivas
-        ? await obtenerReferenciasActivas()
-        : await obtenerReferenciasInactivas();
+  //  El filtro por código lo resuelve el backend; se espera a que el usuario deje de escribir
+  useEffect(() => {
+    if (!usuarioActual) return;
+    const espera = setTimeout(() => cargarReferencias(false), 300);
+    return () => clearTimeout(espera);
+  }, [searchCodigo]);
+
+  //  Cambios hechos por otros administradores: se aplican sin volver a pedir la lista
+  useEffect(() => {
+    if (!usuarioActual || usuarioActual.rol !== "ADMIN") return;
+    return suscribirEventos<any>("/api/referencias/eventos", ({ datos }) => {
+      setReferencias((actuales) => {
+        const sinEsta = actuales.filter((r) => r.idReferencia !== datos.idReferencia);
+        const prefijo = searchCodigo.trim().toUpperCase();
+        const visible =
+          datos.activo === mostrarActivas &&
+          (!prefijo ||
+            datos.codigo.startsWith(prefijo) ||
+            datos.nombre.toUpperCase().startsWith(prefijo));
+        if (!visible) return sinEsta;
 
-      const listaOrdenada = lista.sort((a: any, b: any) =>
-        a.nombre.localeCompare(b.nombre, "es", { sensitivity: "base" })
-      );
+        // Solo se inserta si cae dentro de lo ya cargado; lo demás llega con las páginas siguientes
+        const ultima = actuales[actuales.length - 1];
+        if (sinEsta.length === actuales.length && siguienteCursor && ultima && datos.nombre > ultima.nombre) {
+          return actuales;
+        }
+        return [...sinEsta, datos].sort((a, b) => (a.nombre < b.nombre ? -1 : a.nombre > b.nombre ? 1 : 0));
+      });
+    });
+  }, [usuarioActual, mostrarActivas, searchCodigo, siguienteCursor]);
+
+  const cargarReferencias = async (mostrarCarga = true) => {
+    try {
+      if (mostrarCarga) setLoadingLista(true);
+      const pagina = await obtenerPaginaReferencias({
+        activo: mostrarActivas,
+        prefijo: searchCodigo.trim(),
+        orden: "nombre",
+      });
 
-      setReferencias(listaOrdenada);
-      setReferenciasFiltradas(listaOrdenada);
+      setReferencias(pagina.elementos);
+      setSiguienteCursor(pagina.siguienteCursor);
     } catch (error) {
       console.error("Error al cargar referencias:", error);
       Alert.alert("Error", "No se pudo cargar la lista de referencias.");
@@ -77,17 +107,26 @@ export default function ListaReferencias() {
     }
   };
 
-  useEffect(() => {
-    let lista = referencias;
+  //  Carga la siguiente página al llegar al final de la lista
+  const cargarMas = async () => {
+    if (!siguienteCursor || loadingMas) return;
+    try {
+      setLoadingMas(true);
+      const pagina = await obtenerPaginaReferencias({
+        activo: mostrarActivas,
+        prefijo: searchCodigo.trim(),
+        orden: "nombre",
+        cursor: siguienteCursor,
+      });
 
-    if (searchCodigo.trim() !== "") {
-      lista = lista.filter((ref) =>
-        String(ref.codigo).toLowerCase().includes(searchCodigo.toLowerCase())
-      );
+      setReferencias((actuales) => [...actuales, ...pagina.elementos]);
+      setSiguienteCursor(pagina.siguienteCursor);
+    } catch (error) {
+      console.error("Error al cargar más referencias:", error);
+    } finally {
+      setLoadingMas(false);
     }
-
-    setReferenciasFiltradas(lista);
-  }, [searchCodigo, referencias]);
+  };
 
   const toggleEstado = (ref: any) => {
     Alert.alert(
@@ -190,12 +229,15 @@ export default function ListaReferencias() {
       />
 
       <FlatList
-        data={referenciasFiltradas}
+        data={referencias}
         renderItem={renderReferencia}
         keyExtractor={(item) => item.idReferencia.toString()}
+        onEndReached={cargarMas}
+        onEndReachedThreshold={0.5}
+        ListFooterComponent={loadingMas ? <ActivityIndicator size="small" /> : null}
       />
 
-      {referenciasFiltradas.length === 0 && (
+      {referencias.length === 0 && (
         <Text style={{ textAlign: "center", marginTop: 10 }}>
           No hay referencias {mostrarActivas ? "activas" : "inactivas"}.
         </Text>
@@ -3,6 +3,7 @@ import { View, Text, FlatList, Button, Alert, StyleSheet } from 'react-native';
 import AsyncStorage from '@react-native-async-storage/async-storage';
 import { useRouter } from 'expo-router';
 import { obtenerUsuarios, cambiarEstadoUsuario } from '../../services/usuarioService';
+import { suscribirEventos } from '../../services/eventos';
 
 export default function ListaUsuarios() {
   const [usuarios, setUsuarios] = useState<any[]>([]);
@@ -34,6 +35,18 @@ export default function ListaUsuarios() {
     verificarYcargar();
   }, []);
 
+  // 🔔 Cambios hechos por otros administradores: se aplican sin volver a pedir la lista
+  useEffect(() => {
+    if (!usuarioActual || usuarioActual.rol !== 'ADMIN') return;
+    return suscribirEventos<any>('/api/usuarios/eventos', ({ datos }) => {
+      setUsuarios((actuales) =>
+        [...actuales.filter((u) => u.idUsuario !== datos.idUsuario), datos].sort((a: any, b: any) =>
+          a.nombre.localeCompare(b.nombre, 'es', { sensitivity: 'base' })
+        )
+      );
+    });
+  }, [usuarioActual]);
+
   // 🔁 Cargar usuarios desde backend
 const cargarUsuarios = async () => {
   try {
@@ -28,6 +28,7 @@ export default function EditarReferencia() {
   const [codigo, setCodigo] = useState("");
   const [nombre, setNombre] = useState("");
   const [activo, setActivo] = useState(true);
+  const [version, setVersion] = useState<number | undefined>(undefined);
 
   useEffect(() => {
     const init = async () => {
@@ -60,6 +61,7 @@ export default function EditarReferencia() {
         setCodigo(referencia.codigo);
         setNombre(referencia.nombre);
         setActivo(referencia.activo);
+        setVersion(referencia.version);
       } catch (err) {
         console.error("Error cargando referencia:", err);
         Alert.alert("Error", "No se pudo cargar la referencia.");
@@ -82,6 +84,7 @@ export default function EditarReferencia() {
         codigo, // ← el código no se modifica
         nombre: nombreNormalizado,
         activo,
+        version,
       };
 
       await actualizarReferencia(id, payload);
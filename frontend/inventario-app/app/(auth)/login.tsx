@@ -50,6 +50,9 @@ export default function Login() {
       console.log('✅ Usuario logueado correctamente:', usuario);
 
       await AsyncStorage.setItem('usuario', JSON.stringify(usuario));
+      if (usuario.token) {
+        await AsyncStorage.setItem('token', usuario.token);
+      }
       setBloqueado(true);
 
       router.replace({
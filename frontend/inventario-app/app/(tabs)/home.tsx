@@ -12,12 +12,15 @@ import { DrawerLayout, GestureHandlerRootView } from 'react-native-gesture-handl
 import Icon from 'react-native-vector-icons/Ionicons';
 import AsyncStorage from '@react-native-async-storage/async-storage';
 import { useRouter, useFocusEffect } from 'expo-router';
+import { obtenerTendenciaMovimientos } from '../../services/analiticaService';
+import { SerieMovimientos } from '../../types/analitica';
 
 export default function Home() {
   const router = useRouter();
   const [usuario, setUsuario] = useState<any | null>(null);
   const [loading, setLoading] = useState(true);
   const [drawerRef, setDrawerRef] = useState<any>(null);
+  const [tendencia, setTendencia] = useState<SerieMovimientos | null>(null);
 
   useFocusEffect(
     useCallback(() => {
@@ -27,6 +30,12 @@ export default function Home() {
           if (data) {
             const user = JSON.parse(data);
             setUsuario(user);
+            if (user.rol === 'ADMIN') {
+              // Últimas 12 semanas, todas las referencias (el panel no debe fallar por esto)
+              obtenerTendenciaMovimientos({ agrupar: 'semana' })
+                .then(setTendencia)
+                .catch(() => setTendencia(null));
+            }
           } else {
             router.replace('/login');
           }
@@ -44,7 +53,7 @@ export default function Home() {
 
   const handleLogout = async () => {
     try {
-      await AsyncStorage.removeItem('usuario');
+      await AsyncStorage.multiRemove(['usuario', 'token', 'catalogoReferencias']);
       setUsuario(null);
       Alert.alert('Sesión cerrada', 'Has cerrado sesión correctamente.');
       router.replace('/login');
@@ -145,6 +154,26 @@ export default function Home() {
     </SafeAreaView>
   );
 
+  // Barras de entradas (verde) y salidas (rojo) por semana, escaladas al mayor valor
+  const renderTendencia = (serie: SerieMovimientos) => {
+    const maximo = Math.max(1, ...serie.entradas, ...serie.salidas);
+    return (
+      <View style={styles.tendencia}>
+        <Text style={styles.tendenciaTitulo}>Movimientos por semana</Text>
+        {serie.inicios.map((inicio, i) => (
+          <View key={inicio} style={styles.tendenciaFila}>
+            <Text style={styles.tendenciaFecha}>{inicio.slice(5)}</Text>
+            <View style={{ flex: 1 }}>
+              <View style={[styles.barraEntradas, { width: `${(serie.entradas[i] / maximo) * 100}%` }]} />
+              <View style={[styles.barraSalidas, { width: `${(serie.salidas[i] / maximo) * 100}%` }]} />
+            </View>
+            <Text style={styles.tendenciaValor}>+{serie.entradas[i]} / -{serie.salidas[i]}</Text>
+          </View>
+        ))}
+      </View>
+    );
+  };
+
   if (loading) {
     return (
       <View style={styles.container}>
@@ -177,6 +206,8 @@ export default function Home() {
         <Text style={styles.subText}>Cédula: {usuario.cedula}</Text>
         <Text style={styles.subText}>Correo: {usuario.correo}</Text>
         <Text style={styles.subText}>Rol: {usuario.rol}</Text>
+
+        {tendencia && renderTendencia(tendencia)}
       </View>
     </SafeAreaView>
   );
@@ -236,6 +267,46 @@ const styles = StyleSheet.create({
     color: '#333',
     marginTop: 8,
   },
+  tendencia: {
+    marginTop: 24,
+    padding: 12,
+    backgroundColor: '#fff',
+    borderRadius: 8,
+    elevation: 1,
+  },
+  tendenciaTitulo: {
+    fontSize: 16,
+    fontWeight: 'bold',
+    color: '#153cc7',
+    marginBottom: 8,
+  },
+  tendenciaFila: {
+    flexDirection: 'row',
+    alignItems: 'center',
+    marginVertical: 3,
+  },
+  tendenciaFecha: {
+    width: 48,
+    fontSize: 12,
+    color: '#4b5563',
+  },
+  tendenciaValor: {
+    width: 90,
+    fontSize: 12,
+    color: '#333',
+    textAlign: 'right',
+  },
+  barraEntradas: {
+    height: 6,
+    backgroundColor: '#16a34a',
+    borderRadius: 3,
+  },
+  barraSalidas: {
+    height: 6,
+    marginTop: 2,
+    backgroundColor: '#dc2626',
+    borderRadius: 3,
+  },
   drawerContainer: {
     flex: 1,
     backgroundColor: '#fff',
@@ -0,0 +1,20 @@
+import { api } from '../api';
+import { Agrupacion, SerieMovimientos } from '../types/analitica';
+
+// 🔹 Tendencia de movimientos (solo ADMIN). Sin referencia = todas; sin fechas = rango por defecto
+export const obtenerTendenciaMovimientos = async (params: {
+  agrupar?: Agrupacion;
+  referencia?: number;
+  desde?: string; // AAAA-MM-DD
+  hasta?: string;
+} = {}): Promise<SerieMovimientos> => {
+  const response = await api.get('/api/analitica/movimientos', {
+    params: {
+      agrupar: params.agrupar ?? 'dia',
+      referencia: params.referencia,
+      desde: params.desde,
+      hasta: params.hasta,
+    },
+  });
+  return response.data;
+};
@@ -0,0 +1,81 @@
+import AsyncStorage from '@react-native-async-storage/async-storage';
+import { api } from '../api';
+
+export interface EventoCambio<T> {
+  nombre: string; // registrada | actualizada | eliminada | registrado | actualizado | estado
+  datos: T;
+}
+
+// 🔔 Suscripción a los cambios en tiempo real (Server-Sent Events).
+// React Native no trae EventSource: se usa XMLHttpRequest, que entrega la respuesta
+// por partes en onprogress. Si la conexión se cierra, reconecta con espera creciente.
+// Devuelve la función para cancelar la suscripción.
+export const suscribirEventos = <T>(
+  ruta: string,
+  alRecibir: (evento: EventoCambio<T>) => void
+): (() => void) => {
+  let xhr: XMLHttpRequest | null = null;
+  let cancelado = false;
+  let reintento: ReturnType<typeof setTimeout> | null = null;
+  let espera = 1000;
+
+  const procesarBloque = (bloque: string) => {
+    let nombre = 'message';
+    const datos: string[] = [];
+    for (const linea of bloque.split('\n')) {
+      if (linea.startsWith('event:')) nombre = linea.substring(6).trim();
+      else if (linea.startsWith('data:')) datos.push(linea.substring(5).replace(/^ /, ''));
+    }
+    // Los comentarios (latidos) no traen data
+    if (datos.length === 0) return;
+    try {
+      alRecibir({ nombre, datos: JSON.parse(datos.join('\n')) });
+    } catch (error) {
+      console.error('Evento inválido:', error);
+    }
+  };
+
+  const conectar = async () => {
+    const token = await AsyncStorage.getItem('token');
+    if (cancelado) return;
+
+    let leidos = 0;
+    let pendiente = '';
+    const actual = new XMLHttpRequest();
+    xhr = actual;
+
+    actual.open('GET', `${api.defaults.baseURL}${ruta}`);
+    actual.setRequestHeader('Accept', 'text/event-stream');
+    if (token) actual.setRequestHeader('Authorization', `Bearer ${token}`);
+
+    actual.onprogress = () => {
+      const texto = actual.responseText;
+      pendiente += texto.substring(leidos);
+      leidos = texto.length;
+      espera = 1000;
+
+      let fin = pendiente.indexOf('\n\n');
+      while (fin >= 0) {
+        procesarBloque(pendiente.substring(0, fin));
+        pendiente = pendiente.substring(fin + 2);
+        fin = pendiente.indexOf('\n\n');
+      }
+    };
+
+    actual.onloadend = () => {
+      if (cancelado) return;
+      reintento = setTimeout(conectar, espera);
+      espera = Math.min(espera * 2, 30000);
+    };
+
+    actual.send();
+  };
+
+  conectar();
+
+  return () => {
+    cancelado = true;
+    if (reintento) clearTimeout(reintento);
+    xhr?.abort();
+  };
+};
@@ -1,5 +1,8 @@
-import { api } from '../api';
-import { Referencia } from '../types/referencia';
+import AsyncStorage from '@react-native-async-storage/async-storage';
+import { api, cabeceraVersion } from '../api';
+import { PaginaCambios, PaginaReferencias, Referencia } from '../types/referencia';
+
+export const CLAVE_CATALOGO = 'catalogoReferencias';
 
 // 🔹 Listar TODAS (activas + inactivas)
 export const obtenerReferencias = async (): Promise<Referencia[]> => {
@@ -7,6 +10,69 @@ export const obtenerReferencias = async (): Promise<Referencia[]> => {
   return response.data;
 };
 
+// 🔹 Listado paginado (el backend filtra, ordena y devuelve el cursor siguiente)
+export const obtenerPaginaReferencias = async (params: {
+  activo?: boolean;
+  prefijo?: string;
+  orden?: 'id' | 'codigo' | 'nombre';
+  cursor?: string | null;
+  tamano?: number;
+}): Promise<PaginaReferencias> => {
+  const response = await api.get('/api/referencias/pagina', {
+    params: {
+      activo: params.activo,
+      prefijo: params.prefijo || undefined,
+      orden: params.orden,
+      cursor: params.cursor || undefined,
+      tamano: params.tamano,
+    },
+  });
+  return response.data;
+};
+
+// 🔹 Búsqueda rápida por prefijo o parte del código/nombre
+export const buscarReferencias = async (
+  texto: string,
+  activo?: boolean,
+  limite = 20
+): Promise<Referencia[]> => {
+  const response = await api.get('/api/referencias/buscar', {
+    params: { q: texto, activo, limite },
+  });
+  return response.data;
+};
+
+// 🔹 Cambios (altas, ediciones y desactivaciones) posteriores a un token
+export const obtenerCambiosReferencias = async (
+  since?: string | null,
+  tamano?: number
+): Promise<PaginaCambios<Referencia>> => {
+  const response = await api.get('/api/referencias/changes', {
+    params: { since: since || undefined, tamano },
+  });
+  return response.data;
+};
+
+// 🔹 Catálogo local sincronizado: la primera vez descarga todo, luego solo lo que cambió
+export const sincronizarReferencias = async (): Promise<Referencia[]> => {
+  const guardado = await AsyncStorage.getItem(CLAVE_CATALOGO);
+  const catalogo: { token: string | null; referencias: Record<string, Referencia> } = guardado
+    ? JSON.parse(guardado)
+    : { token: null, referencias: {} };
+
+  let pagina: PaginaCambios<Referencia>;
+  do {
+    pagina = await obtenerCambiosReferencias(catalogo.token);
+    for (const ref of pagina.elementos) {
+      catalogo.referencias[String(ref.idReferencia)] = ref;
+    }
+    catalogo.token = pagina.token;
+  } while (pagina.hayMas);
+
+  await AsyncStorage.setItem(CLAVE_CATALOGO, JSON.stringify(catalogo));
+  return Object.values(catalogo.referencias);
+};
+
 // 🔹 Obtener referencia por ID
 export const obtenerReferenciaPorId = async (id: number | string): Promise<Referencia> => {
   const response = await api.get(`/api/referencias/${id}`);
@@ -40,7 +106,9 @@ export const actualizarReferencia = async (
     activo: nuevosDatos.activo
   };
 
-  const response = await api.put(`/api/referencias/${idReferencia}`, payload);
+  const response = await api.put(`/api/referencias/${idReferencia}`, payload, {
+    headers: cabeceraVersion(nuevosDatos.version),
+  });
   return response.data;
 };
 
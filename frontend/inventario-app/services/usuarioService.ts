@@ -1,4 +1,4 @@
-import { api } from '../api';
+import { api, cabeceraVersion } from '../api';
 import { Usuario } from '../types/usuario';
 
 // 🔹 Probar conexión (listar todos los usuarios)
@@ -18,6 +18,8 @@ export const loginUsuario = async (cedula: string, contrasena: string): Promise<
     let mensaje = 'Error al iniciar sesión.';
     if (typeof error.response?.data === 'string') {
       mensaje = error.response.data;
+    } else if (error.response?.data?.mensaje) {
+      mensaje = error.response.data.mensaje;
     } else if (error.response?.data?.message) {
       mensaje = error.response.data.message;
     } else if (error.message) {
@@ -40,7 +42,7 @@ export const registrarUsuario = async (usuario: any): Promise<Usuario> => {
 
   console.log(' Enviando usuario a registrar:', payload);
   const response = await api.post('/api/usuarios/registrar', payload, {
-    headers: { 'Content-Type': 'application/json' },
+    headers: { 'Content-Type': 'application/json', ...cabeceraVersion(nuevosDatos.version) },
   });
   return response.data;
 };
@@ -70,7 +72,7 @@ export const actualizarUsuario = async (
   nuevosDatos: Partial<Usuario>
 ): Promise<Usuario> => {
   const response = await api.put(`/api/usuarios/${idUsuario}`, nuevosDatos, {
-    headers: { 'Content-Type': 'application/json' },
+    headers: { 'Content-Type': 'application/json', ...cabeceraVersion(nuevosDatos.version) },
   });
   return response.data;
 };
@@ -0,0 +1,14 @@
+export type Agrupacion = 'dia' | 'semana' | 'mes';
+
+// Serie en columnas: el periodo i es inicios[i], entradas[i], salidas[i]...
+export interface SerieMovimientos {
+  idReferencia: number | null;
+  agrupacion: Agrupacion;
+  desde: string;
+  hasta: string;
+  inicios: string[];
+  entradas: number[];
+  salidas: number[];
+  ajustes: number[];
+  movimientos: number[];
+}
@@ -3,4 +3,16 @@ export interface Referencia {
   codigo: string;
   nombre: string;
   activo: boolean;
+  version?: number; // Se envía como If-Match al actualizar
+}
+
+export interface PaginaReferencias {
+  elementos: Referencia[];
+  siguienteCursor: string | null;
+}
+
+export interface PaginaCambios<T> {
+  elementos: T[];
+  token: string;
+  hayMas: boolean;
 }
@@ -5,4 +5,6 @@ export interface Usuario {
   correo: string;
   contrasena: string;
   rol: string;
+  version?: number; // Se envía como If-Match al actualizar
+  token?: string; // Solo viene en la respuesta del login
 }